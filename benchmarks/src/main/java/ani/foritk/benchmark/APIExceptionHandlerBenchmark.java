@@ -0,0 +1,91 @@
+package ani.foritk.benchmark;
+
+import ani.foritk.controller.WalletController;
+import ani.foritk.dto.OperationType;
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Money;
+import ani.foritk.exception.APIError;
+import ani.foritk.exception.APIExceptionHandler;
+import ani.foritk.exception.ConcurrentUpdateException;
+import ani.foritk.exception.InsufficientFundsException;
+import ani.foritk.exception.WalletNotFoundException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejection paths of the API: each operation creates the exception the way the request thread would and
+ * passes it to the handler, so stack trace capture and logging are part of the measured cost. Logs go to
+ * target/benchmark-logs through the same async appender setup as the service.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class APIExceptionHandlerBenchmark {
+    private final APIExceptionHandler handler = new APIExceptionHandler();
+    private final UUID id = UUID.randomUUID();
+    private final Money amount = Money.of("100");
+    private final UpdateWalletDto invalid = new UpdateWalletDto(id, OperationType.DEPOSIT, Money.ZERO);
+    private MethodParameter updateWalletBody;
+
+    @Setup
+    public void setUp() {
+        final Method updateWallet = Arrays.stream(WalletController.class.getMethods())
+                .filter(method -> method.getName().equals("updateWallet"))
+                .findFirst()
+                .orElseThrow();
+        updateWalletBody = new MethodParameter(updateWallet, 0);
+    }
+
+    @Benchmark
+    public ResponseEntity<APIError> insufficientFunds() {
+        return handler.handleInsufficientFunds(
+                new InsufficientFundsException(id, amount));
+    }
+
+    @Benchmark
+    public ResponseEntity<APIError> entityNotFound() {
+        return handler.handleEntityNotFound(new WalletNotFoundException(id));
+    }
+
+    @Benchmark
+    public ResponseEntity<APIError> concurrentUpdate() {
+        return handler.handleConcurrentUpdate(
+                new ConcurrentUpdateException("Wallet with ID " + id + " is updated concurrently", null));
+    }
+
+    @Benchmark
+    public ResponseEntity<APIError> validationFailure() {
+        final BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(invalid, "updateWalletDto");
+        bindingResult.addError(new FieldError(
+                "updateWalletDto", "amount", "must be greater than or equal to 0.01"));
+        return handler.handleMethodArgumentNotValid(
+                new MethodArgumentNotValidException(updateWalletBody, bindingResult));
+    }
+
+    @Benchmark
+    public ResponseEntity<APIError> malformedJson() {
+        return handler.handleBadJson(new HttpMessageNotReadableException("JSON parse error", null, null));
+    }
+}
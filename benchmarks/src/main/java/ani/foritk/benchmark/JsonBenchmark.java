@@ -0,0 +1,57 @@
+package ani.foritk.benchmark;
+
+import ani.foritk.dto.GetWalletDto;
+import ani.foritk.dto.OperationType;
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Money;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request and response bodies of POST /api/v1/wallet, using an ObjectMapper built the way Spring MVC
+ * builds the one behind its JSON message converter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonBenchmark {
+    private ObjectMapper objectMapper;
+    private GetWalletDto getWalletDto;
+    private byte[] updateWalletJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        final UUID id = UUID.randomUUID();
+        getWalletDto = new GetWalletDto(id, Money.of("1234.56"));
+        updateWalletJson = objectMapper.writeValueAsBytes(
+                new UpdateWalletDto(id, OperationType.DEPOSIT, Money.of("12.34")));
+    }
+
+    @Benchmark
+    public byte[] serializeGetWalletDto() throws IOException {
+        return objectMapper.writeValueAsBytes(getWalletDto);
+    }
+
+    @Benchmark
+    public UpdateWalletDto deserializeUpdateWalletDto() throws IOException {
+        return objectMapper.readValue(updateWalletJson, UpdateWalletDto.class);
+    }
+}
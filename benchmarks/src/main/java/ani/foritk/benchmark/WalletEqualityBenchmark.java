@@ -0,0 +1,59 @@
+package ani.foritk.benchmark;
+
+import ani.foritk.entity.Money;
+import ani.foritk.entity.Wallet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WalletEqualityBenchmark {
+    private Wallet wallet;
+    private Wallet sameState;
+    private Wallet otherBalance;
+
+    @Setup
+    public void setUp() {
+        final UUID id = UUID.randomUUID();
+        wallet = wallet(id, "1234.56");
+        sameState = wallet(id, "1234.56");
+        otherBalance = wallet(id, "1234.57");
+    }
+
+    @Benchmark
+    public boolean equalsSameState() {
+        return wallet.equals(sameState);
+    }
+
+    @Benchmark
+    public boolean equalsOtherBalance() {
+        return wallet.equals(otherBalance);
+    }
+
+    @Benchmark
+    public int hashCodeOf() {
+        return wallet.hashCode();
+    }
+
+    private static Wallet wallet(UUID id, String balance) {
+        final Wallet wallet = new Wallet();
+        wallet.setId(id);
+        wallet.setBalance(Money.of(balance));
+        return wallet;
+    }
+}
@@ -0,0 +1,110 @@
+package ani.foritk.service;
+
+import ani.foritk.dto.OperationType;
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Money;
+import ani.foritk.entity.Wallet;
+import ani.foritk.exception.InsufficientFundsException;
+import ani.foritk.repository.WalletRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balance arithmetic and the branching of {@link WalletService#updateBalance} with the pessimistic
+ * strategy over an in-memory repository, so only the service code path is measured. Lives in the
+ * service package to reach {@link BalanceOperations}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WalletServiceBenchmark {
+    private final UUID id = UUID.randomUUID();
+    private final Money balance = Money.of("1000000.00");
+    private final Money amount = Money.of("12.34");
+    private final UpdateWalletDto deposit = new UpdateWalletDto(id, OperationType.DEPOSIT, amount);
+    private final UpdateWalletDto withdraw = new UpdateWalletDto(id, OperationType.WITHDRAW, amount);
+    private final UpdateWalletDto overdraw = new UpdateWalletDto(id, OperationType.WITHDRAW, Money.of("2000000"));
+    private WalletService walletService;
+
+    @Setup
+    public void setUp() {
+        final Wallet wallet = new Wallet();
+        wallet.setId(id);
+        wallet.setBalance(balance);
+        wallet.setVersion(0L);
+        final WalletRepository walletRepository = (WalletRepository) Proxy.newProxyInstance(
+                WalletRepository.class.getClassLoader(),
+                new Class<?>[]{WalletRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findById", "findByIdAndLock" -> Optional.of(wallet);
+                    case "save", "saveAndFlush" -> args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        walletService = new WalletService(
+                walletRepository,
+                new PessimisticBalanceUpdateStrategy(walletRepository, TransactionOperations.withoutTransaction(), Optional.empty()),
+                TransactionOperations.withoutTransaction(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty()
+        );
+    }
+
+    @Benchmark
+    public Money applyDeposit() {
+        return BalanceOperations.apply(id, balance, OperationType.DEPOSIT, amount);
+    }
+
+    @Benchmark
+    public Money applyWithdraw() {
+        return BalanceOperations.apply(id, balance, OperationType.WITHDRAW, amount);
+    }
+
+    @Benchmark
+    public Object applyRejectedWithdraw() {
+        try {
+            return BalanceOperations.apply(id, balance, OperationType.WITHDRAW, overdraw.amount());
+        } catch (InsufficientFundsException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Wallet updateBalanceDepositThenWithdraw() {
+        walletService.updateBalance(deposit);
+        return walletService.updateBalance(withdraw);
+    }
+
+    @Benchmark
+    public Object updateBalanceRejected() {
+        try {
+            return walletService.updateBalance(overdraw);
+        } catch (InsufficientFundsException e) {
+            return e;
+        }
+    }
+}
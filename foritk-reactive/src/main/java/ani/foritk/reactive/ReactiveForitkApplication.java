@@ -0,0 +1,13 @@
+package ani.foritk.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class ReactiveForitkApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveForitkApplication.class, args);
+    }
+
+}
@@ -0,0 +1,30 @@
+package ani.foritk.reactive.config;
+
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Refuses to start when a feature of the blocking service that the reactive paths do not implement is
+ * switched on: updates would bypass wallet shards, ledger rows and balance events, and reads would miss
+ * the shard balances.
+ */
+@Component
+public class UnsupportedFeaturesCheck {
+    static final List<String> UNSUPPORTED = List.of(
+            "wallet.sharding.enabled",
+            "wallet.ledger.enabled",
+            "wallet.outbox.enabled"
+    );
+
+    public UnsupportedFeaturesCheck(Environment environment) {
+        final List<String> enabled = UNSUPPORTED.stream()
+                .filter(property -> environment.getProperty(property, Boolean.class, false))
+                .toList();
+        if (!enabled.isEmpty()) {
+            throw new IllegalStateException("The reactive service does not support " + enabled
+                    + "; run the blocking service or switch them off");
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package ani.foritk.reactive.exception;
+
+import ani.foritk.exception.APIError;
+import ani.foritk.exception.InsufficientFundsException;
+import ani.foritk.exception.RejectionLog;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@RestControllerAdvice
+@Slf4j
+public class ReactiveAPIExceptionHandler {
+    private static final HttpHeaders JSON_HEADERS;
+
+    static {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        JSON_HEADERS = HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+
+    private final RejectionLog rejectionLog = new RejectionLog(Duration.ofSeconds(10));
+
+    @ExceptionHandler(WalletNotFoundException.class)
+    public ResponseEntity<APIError> handleWalletNotFound(WalletNotFoundException ex) {
+        final String message = ex.getMessage();
+        rejectionLog.record(RejectionLog.Kind.WALLET_NOT_FOUND, message);
+        return constructApiErrorWithHttpStatus(new APIError(HttpStatus.NOT_FOUND, message));
+    }
+
+    @ExceptionHandler(InsufficientFundsException.class)
+    public ResponseEntity<APIError> handleInsufficientFunds(InsufficientFundsException ex) {
+        final String message = ex.getMessage();
+        rejectionLog.record(RejectionLog.Kind.INSUFFICIENT_FUNDS, message);
+        return constructApiErrorWithHttpStatus(new APIError(HttpStatus.BAD_REQUEST, message));
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<APIError> handleBindException(WebExchangeBindException ex) {
+        final Set<String> errs = ex.getBindingResult()
+                .getFieldErrors()
+                .stream()
+                .map(fieldError -> "Field '" + fieldError.getField() + "' is invalid: " + fieldError.getDefaultMessage())
+                .collect(Collectors.toSet());
+
+        final APIError apiError = new APIError(
+                HttpStatus.BAD_REQUEST,
+                "Request validation failed: " + errs
+        );
+        return constructApiErrorWithHttpStatus(apiError);
+    }
+
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<APIError> handleBadInput(ServerWebInputException ex) {
+        final APIError apiError = new APIError(
+                HttpStatus.BAD_REQUEST,
+                "Request validation failed: " + ex.getReason()
+        );
+        return constructApiErrorWithHttpStatus(apiError);
+    }
+
+    @PreDestroy
+    public void stop() {
+        rejectionLog.close();
+    }
+
+    private ResponseEntity<APIError> constructApiErrorWithHttpStatus(APIError apiError) {
+        return new ResponseEntity<>(apiError, JSON_HEADERS, apiError.status());
+    }
+}
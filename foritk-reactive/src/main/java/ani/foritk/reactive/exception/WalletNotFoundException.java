@@ -0,0 +1,10 @@
+package ani.foritk.reactive.exception;
+
+/**
+ * Unknown wallets are an expected outcome rather than a fault, so the exception carries no stack trace.
+ */
+public class WalletNotFoundException extends RuntimeException {
+    public WalletNotFoundException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,60 @@
+package ani.foritk.reactive.repository;
+
+import ani.foritk.dto.GetWalletDto;
+import ani.foritk.entity.Money;
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+@Repository
+public class ReactiveWalletRepository {
+    private final DatabaseClient databaseClient;
+
+    public ReactiveWalletRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<GetWalletDto> findById(UUID id) {
+        return databaseClient.sql("SELECT id, balance FROM wallet WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveWalletRepository::mapWallet)
+                .one();
+    }
+
+    public Mono<Boolean> existsById(UUID id) {
+        return databaseClient.sql("SELECT 1 FROM wallet WHERE id = :id")
+                .bind("id", id)
+                .map(row -> Boolean.TRUE)
+                .one()
+                .defaultIfEmpty(Boolean.FALSE);
+    }
+
+    public Mono<GetWalletDto> depositAtomically(UUID id, Money amount) {
+        return databaseClient.sql("""
+                        UPDATE wallet SET balance = balance + :amount, version = version + 1
+                        WHERE id = :id
+                        RETURNING id, balance""")
+                .bind("id", id)
+                .bind("amount", amount.minorUnits())
+                .map(ReactiveWalletRepository::mapWallet)
+                .one();
+    }
+
+    public Mono<GetWalletDto> withdrawAtomically(UUID id, Money amount) {
+        return databaseClient.sql("""
+                        UPDATE wallet SET balance = balance - :amount, version = version + 1
+                        WHERE id = :id AND balance >= :amount
+                        RETURNING id, balance""")
+                .bind("id", id)
+                .bind("amount", amount.minorUnits())
+                .map(ReactiveWalletRepository::mapWallet)
+                .one();
+    }
+
+    private static GetWalletDto mapWallet(Readable row) {
+        return new GetWalletDto(row.get("id", UUID.class), Money.ofMinorUnits(row.get("balance", Long.class)));
+    }
+}
@@ -0,0 +1,47 @@
+package ani.foritk.reactive.service;
+
+import ani.foritk.dto.GetWalletDto;
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Money;
+import ani.foritk.exception.InsufficientFundsException;
+import ani.foritk.reactive.exception.WalletNotFoundException;
+import ani.foritk.reactive.repository.ReactiveWalletRepository;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Applies each update as a single conditional UPDATE ... RETURNING statement in auto-commit mode, so no
+ * row lock outlives the statement and no connection is held between the request and the response.
+ */
+@Service
+public class ReactiveWalletService {
+    private final ReactiveWalletRepository walletRepository;
+
+    public ReactiveWalletService(ReactiveWalletRepository walletRepository) {
+        this.walletRepository = walletRepository;
+    }
+
+    public Mono<GetWalletDto> getWallet(UUID id) {
+        return walletRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> notFound(id)));
+    }
+
+    public Mono<GetWalletDto> updateBalance(UpdateWalletDto updateWalletDto) {
+        final UUID id = updateWalletDto.valletId();
+        final Money amount = updateWalletDto.amount();
+        final Mono<GetWalletDto> updated = switch (updateWalletDto.operationType()) {
+            case DEPOSIT -> walletRepository.depositAtomically(id, amount);
+            case WITHDRAW -> walletRepository.withdrawAtomically(id, amount);
+        };
+        return updated.switchIfEmpty(Mono.defer(() -> walletRepository.existsById(id)
+                .flatMap(exists -> Mono.error(exists
+                        ? new InsufficientFundsException(id, amount)
+                        : notFound(id)))));
+    }
+
+    private static WalletNotFoundException notFound(UUID id) {
+        return new WalletNotFoundException("Wallet with ID " + id + " is not found");
+    }
+}
@@ -0,0 +1,27 @@
+package ani.foritk.reactive.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UnsupportedFeaturesCheckTest {
+
+    @Test
+    void constructor_WhenOutboxIsEnabled_ThenRefuseToStart() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("wallet.sharding.enabled", "false")
+                .withProperty("wallet.outbox.enabled", "true");
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> new UnsupportedFeaturesCheck(environment));
+        assertTrue(exception.getMessage().contains("wallet.outbox.enabled"));
+    }
+
+    @Test
+    void constructor_WhenFeaturesAreOff_ThenStart() {
+        assertDoesNotThrow(() -> new UnsupportedFeaturesCheck(new MockEnvironment()));
+    }
+}
@@ -0,0 +1,94 @@
+package ani.foritk.reactive.controller;
+
+import ani.foritk.dto.GetWalletDto;
+import ani.foritk.dto.OperationType;
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Money;
+import ani.foritk.exception.InsufficientFundsException;
+import ani.foritk.reactive.exception.WalletNotFoundException;
+import ani.foritk.reactive.service.ReactiveWalletService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(ReactiveWalletController.class)
+class ReactiveWalletControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockitoBean
+    private ReactiveWalletService walletService;
+
+    @Test
+    void getById_WhenFound_ThenSuccess() {
+        UUID walletId = UUID.randomUUID();
+        when(walletService.getWallet(walletId))
+                .thenReturn(Mono.just(new GetWalletDto(walletId, Money.of("100.00"))));
+
+        webTestClient.get().uri("/api/v1/wallets/{id}", walletId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.valletId").isEqualTo(walletId.toString())
+                .jsonPath("$.balance").isEqualTo(100.00);
+    }
+
+    @Test
+    void getById_WhenNotFound_ThenNotFound() {
+        UUID walletId = UUID.randomUUID();
+        when(walletService.getWallet(walletId))
+                .thenReturn(Mono.error(new WalletNotFoundException("Wallet with ID " + walletId + " is not found")));
+
+        webTestClient.get().uri("/api/v1/wallets/{id}", walletId)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("NOT_FOUND")
+                .jsonPath("$.message").isEqualTo("Wallet with ID " + walletId + " is not found");
+    }
+
+    @Test
+    void updateWallet_WhenInsufficientFunds_ThenBadRequest() {
+        UpdateWalletDto request = new UpdateWalletDto(UUID.randomUUID(), OperationType.WITHDRAW, Money.of("10"));
+        when(walletService.updateBalance(any()))
+                .thenReturn(Mono.error(new InsufficientFundsException("Not enough money")));
+
+        webTestClient.post().uri("/api/v1/wallet")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Not enough money");
+    }
+
+    @Test
+    void updateWallet_WhenNegativeAmount_ThenBadRequest() {
+        String badJson = """
+                {
+                    "valletId": "%s",
+                    "operationType": "DEPOSIT",
+                    "amount": -5.00
+                }
+                """.formatted(UUID.randomUUID());
+
+        webTestClient.post().uri("/api/v1/wallet")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(badJson)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").value(containsString("Field 'amount' is invalid"));
+    }
+}
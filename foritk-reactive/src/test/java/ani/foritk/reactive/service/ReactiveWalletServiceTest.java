@@ -0,0 +1,63 @@
+package ani.foritk.reactive.service;
+
+import ani.foritk.dto.GetWalletDto;
+import ani.foritk.dto.OperationType;
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Money;
+import ani.foritk.exception.InsufficientFundsException;
+import ani.foritk.reactive.exception.WalletNotFoundException;
+import ani.foritk.reactive.repository.ReactiveWalletRepository;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.UUID;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReactiveWalletServiceTest {
+
+    private final ReactiveWalletRepository walletRepository = mock();
+    private final ReactiveWalletService walletService = new ReactiveWalletService(walletRepository);
+    private final UUID id = UUID.randomUUID();
+
+    @Test
+    void updateBalance_WhenDepositIsApplied_ThenReturnNewBalance() {
+        GetWalletDto updated = new GetWalletDto(id, Money.of("15.00"));
+        when(walletRepository.depositAtomically(id, Money.of("10"))).thenReturn(Mono.just(updated));
+
+        StepVerifier.create(walletService.updateBalance(new UpdateWalletDto(id, OperationType.DEPOSIT, Money.of("10"))))
+                .expectNext(updated)
+                .verifyComplete();
+    }
+
+    @Test
+    void updateBalance_WhenBalanceLessThanWithdrawAmount_ThenErrorWithInsufficientFunds() {
+        when(walletRepository.withdrawAtomically(id, Money.of("10"))).thenReturn(Mono.empty());
+        when(walletRepository.existsById(id)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(walletService.updateBalance(new UpdateWalletDto(id, OperationType.WITHDRAW, Money.of("10"))))
+                .expectError(InsufficientFundsException.class)
+                .verify();
+    }
+
+    @Test
+    void updateBalance_WhenWalletIsNotFound_ThenErrorWithWalletNotFound() {
+        when(walletRepository.withdrawAtomically(id, Money.of("10"))).thenReturn(Mono.empty());
+        when(walletRepository.existsById(id)).thenReturn(Mono.just(false));
+
+        StepVerifier.create(walletService.updateBalance(new UpdateWalletDto(id, OperationType.WITHDRAW, Money.of("10"))))
+                .expectErrorMessage("Wallet with ID " + id + " is not found")
+                .verify();
+    }
+
+    @Test
+    void getWallet_WhenWalletIsNotFound_ThenErrorWithWalletNotFound() {
+        when(walletRepository.findById(id)).thenReturn(Mono.empty());
+
+        StepVerifier.create(walletService.getWallet(id))
+                .expectError(WalletNotFoundException.class)
+                .verify();
+    }
+}
@@ -0,0 +1,28 @@
+package ani.foritk;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseAutoConfiguration;
+
+import java.util.Arrays;
+
+/**
+ * Applies the Liquibase changelog with the application's {@code spring.datasource} and
+ * {@code spring.liquibase} settings and exits. Run it as a one-shot job before starting the service with
+ * {@code spring.liquibase.enabled=false}, so that new instances do not check the changelog on startup.
+ */
+@ImportAutoConfiguration({DataSourceAutoConfiguration.class, LiquibaseAutoConfiguration.class})
+public class SchemaMigrationApplication {
+
+    public static void main(String[] args) {
+        final SpringApplication application = new SpringApplication(SchemaMigrationApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        // the job shares the environment of the service, which disables Liquibase
+        final String[] arguments = Arrays.copyOf(args, args.length + 1);
+        arguments[args.length] = "--spring.liquibase.enabled=true";
+        System.exit(SpringApplication.exit(application.run(arguments)));
+    }
+
+}
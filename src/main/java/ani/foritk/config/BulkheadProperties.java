@@ -0,0 +1,20 @@
+package ani.foritk.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "wallet.bulkhead")
+public record BulkheadProperties(
+        boolean enabled,
+
+        @DefaultValue("4")
+        int maxPerWallet,
+
+        @DefaultValue("0")
+        int maxConcurrent,
+
+        @DefaultValue("5s")
+        Duration acquireTimeout
+) {}
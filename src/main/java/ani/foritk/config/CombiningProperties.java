@@ -0,0 +1,12 @@
+package ani.foritk.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "wallet.combining")
+public record CombiningProperties(
+        boolean enabled,
+
+        @DefaultValue("256")
+        int maxBatchSize
+) {}
@@ -0,0 +1,29 @@
+package ani.foritk.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "wallet.concurrency-limit")
+public record ConcurrencyLimitProperties(
+        boolean enabled,
+
+        @DefaultValue("20")
+        int initialLimit,
+
+        @DefaultValue("4")
+        int minLimit,
+
+        @DefaultValue("200")
+        int maxLimit,
+
+        @DefaultValue("2.0")
+        double tolerance,
+
+        @DefaultValue("0.2")
+        double smoothing,
+
+        @DefaultValue("1s")
+        Duration retryAfter
+) {}
@@ -0,0 +1,26 @@
+package ani.foritk.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "wallet.idempotency")
+public record IdempotencyProperties(
+        boolean enabled,
+
+        @DefaultValue("24h")
+        Duration retention,
+
+        @DefaultValue("10m")
+        Duration memoryWindow,
+
+        @DefaultValue("10")
+        int memoryBuckets,
+
+        @DefaultValue("16384")
+        int bucketCapacity,
+
+        @DefaultValue("1000")
+        int purgeBatchSize
+) {}
@@ -0,0 +1,31 @@
+package ani.foritk.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "wallet.journal")
+public record JournalProperties(
+        boolean enabled,
+
+        @DefaultValue("journal")
+        Path directory,
+
+        @DefaultValue("4")
+        int partitions,
+
+        @DefaultValue("64MB")
+        DataSize segmentSize,
+
+        @DefaultValue("1024")
+        int maxBatchSize,
+
+        @DefaultValue("1s")
+        Duration checkpointInterval,
+
+        @DefaultValue("1000")
+        int checkpointBatchSize
+) {}
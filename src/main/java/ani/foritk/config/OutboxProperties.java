@@ -0,0 +1,39 @@
+package ani.foritk.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "wallet.outbox")
+public record OutboxProperties(
+        boolean enabled,
+
+        @DefaultValue("16")
+        int partitions,
+
+        @DefaultValue("2")
+        int workers,
+
+        @DefaultValue("500")
+        int batchSize,
+
+        @DefaultValue("100ms")
+        Duration pollInterval,
+
+        @DefaultValue("1s")
+        Duration retryInterval,
+
+        @DefaultValue("file")
+        String sink,
+
+        @DefaultValue("outbox/balance-events.ndjson")
+        Path file,
+
+        URI url,
+
+        @DefaultValue("5s")
+        Duration timeout
+) {}
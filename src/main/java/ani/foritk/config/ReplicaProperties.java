@@ -0,0 +1,31 @@
+package ani.foritk.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Read replicas for read-only transactions. The credentials default to those of the primary.
+ */
+@ConfigurationProperties(prefix = "wallet.replicas")
+public record ReplicaProperties(
+        boolean enabled,
+
+        @DefaultValue
+        List<String> urls,
+
+        String username,
+
+        String password,
+
+        @DefaultValue("10")
+        int maximumPoolSize,
+
+        @DefaultValue("1s")
+        Duration maxLag,
+
+        @DefaultValue("1s")
+        Duration lagCheckInterval
+) {}
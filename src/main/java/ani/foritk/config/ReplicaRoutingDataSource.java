@@ -0,0 +1,167 @@
+package ani.foritk.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out connections to the replicas in turn, skipping a replica whose replication lag exceeds
+ * {@code wallet.replicas.max-lag} or that cannot be reached, and to the primary when none is usable.
+ * The lag is checked every {@code lag-check-interval}: a replica that has replayed the WAL position the
+ * primary reported just before counts as caught up, otherwise its lag is the age of the last transaction
+ * it replayed. Replicas are not used until their first check passes.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+    private static final String PRIMARY_POSITION = "SELECT pg_current_wal_lsn()::text";
+    private static final String REPLICA_LAG = """
+            SELECT pg_is_in_recovery(),
+                   coalesce(pg_last_wal_replay_lsn() >= ?::pg_lsn, false),
+                   coalesce(extract(epoch FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)::bigint""";
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final ReplicaProperties replicaProperties;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter fallbacks;
+    private final ScheduledExecutorService lagExecutor = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "wallet-replica-lag"));
+
+    public ReplicaRoutingDataSource(DataSource primary,
+                                    Map<String, DataSource> replicas,
+                                    ReplicaProperties replicaProperties,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicaProperties = replicaProperties;
+        replicas.forEach((name, dataSource) -> {
+            final Replica replica = new Replica(name, dataSource);
+            this.replicas.add(replica);
+            Gauge.builder("wallet.replica.lag", replica, r -> r.lagMillis)
+                    .description("Replication lag of the replica at the last check, -1 if it failed")
+                    .baseUnit("milliseconds")
+                    .tag("replica", name)
+                    .register(meterRegistry);
+        });
+        this.fallbacks = Counter.builder("wallet.replica.fallbacks")
+                .description("Read-only connections taken from the primary because no replica was usable")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        final long interval = replicaProperties.lagCheckInterval().toMillis();
+        lagExecutor.scheduleWithFixedDelay(this::checkLag, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() throws Exception {
+        lagExecutor.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        final int start = next.getAndIncrement();
+        for (int i = 0; i < replicas.size(); i++) {
+            final Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+            if (replica.usable) {
+                try {
+                    return replica.dataSource.getConnection();
+                } catch (SQLException | RuntimeException e) {
+                    replica.usable = false;
+                    log.warn("Replica {} is not reachable, using the others until the next lag check", replica.name, e);
+                }
+            }
+        }
+        fallbacks.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica credentials are configured with wallet.replicas");
+    }
+
+    void checkLag() {
+        final String primaryPosition;
+        try (Connection connection = primary.getConnection();
+             PreparedStatement statement = connection.prepareStatement(PRIMARY_POSITION);
+             ResultSet rs = statement.executeQuery()) {
+            rs.next();
+            primaryPosition = rs.getString(1);
+        } catch (SQLException | RuntimeException e) {
+            log.warn("Failed to read the WAL position of the primary, replica states are kept", e);
+            return;
+        }
+        for (Replica replica : replicas) {
+            check(replica, primaryPosition);
+        }
+    }
+
+    private void check(Replica replica, String primaryPosition) {
+        final boolean wasUsable = replica.usable;
+        final boolean firstCheck = !replica.checked;
+        replica.checked = true;
+        try (Connection connection = replica.dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(REPLICA_LAG)) {
+            statement.setString(1, primaryPosition);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                if (!rs.getBoolean(1)) {
+                    replica.lagMillis = -1;
+                    replica.usable = false;
+                    if (wasUsable || firstCheck) {
+                        log.warn("Replica {} is not in recovery, it is not used", replica.name);
+                    }
+                    return;
+                }
+                replica.lagMillis = rs.getBoolean(2) ? 0 : rs.getLong(3);
+            }
+            replica.usable = replica.lagMillis <= replicaProperties.maxLag().toMillis();
+            if (wasUsable != replica.usable || firstCheck) {
+                log.info("Replica {} is {} with a lag of {} ms", replica.name,
+                        replica.usable ? "used" : "skipped", replica.lagMillis);
+            }
+        } catch (SQLException | RuntimeException e) {
+            replica.lagMillis = -1;
+            replica.usable = false;
+            if (wasUsable || firstCheck) {
+                log.warn("Lag check of replica {} failed, it is skipped", replica.name, e);
+            }
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile long lagMillis = -1;
+        private volatile boolean usable;
+        private boolean checked;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
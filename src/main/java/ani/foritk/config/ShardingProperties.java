@@ -0,0 +1,18 @@
+package ani.foritk.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+import java.util.UUID;
+
+@ConfigurationProperties(prefix = "wallet.sharding")
+public record ShardingProperties(
+        boolean enabled,
+
+        @DefaultValue("8")
+        int shards,
+
+        @DefaultValue
+        List<UUID> wallets
+) {}
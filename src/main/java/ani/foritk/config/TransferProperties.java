@@ -0,0 +1,18 @@
+package ani.foritk.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "wallet.transfer")
+public record TransferProperties(
+        @DefaultValue("5")
+        int maxAttempts,
+
+        @DefaultValue("2ms")
+        Duration initialBackoff,
+
+        @DefaultValue("100ms")
+        Duration maxBackoff
+) {}
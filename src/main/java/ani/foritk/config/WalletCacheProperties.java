@@ -0,0 +1,17 @@
+package ani.foritk.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "wallet.cache")
+public record WalletCacheProperties(
+        boolean enabled,
+
+        @DefaultValue("100000")
+        long maximumSize,
+
+        @DefaultValue("30s")
+        Duration ttl
+) {}
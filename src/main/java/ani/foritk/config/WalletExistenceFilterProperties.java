@@ -0,0 +1,25 @@
+package ani.foritk.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "wallet.existence-filter")
+public record WalletExistenceFilterProperties(
+        boolean enabled,
+
+        @DefaultValue("0.001")
+        double falsePositiveRate,
+
+        @DefaultValue("100000")
+        long minimumCapacity,
+
+        @DefaultValue("2.0")
+        double headroom,
+
+        @DefaultValue("10m")
+        Duration rebuildInterval,
+
+        boolean singleWriter
+) {}
@@ -0,0 +1,10 @@
+package ani.foritk.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "wallet.import")
+public record WalletImportProperties(
+        @DefaultValue("50000")
+        int chunkSize
+) {}
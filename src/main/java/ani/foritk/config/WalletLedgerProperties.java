@@ -0,0 +1,20 @@
+package ani.foritk.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "wallet.ledger")
+public record WalletLedgerProperties(
+        boolean enabled,
+
+        @DefaultValue("3")
+        int partitionsAhead,
+
+        @DefaultValue("10000")
+        int exportPageSize,
+
+        @DefaultValue("5s")
+        Duration exportSettleTimeout
+) {}
@@ -0,0 +1,12 @@
+package ani.foritk.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "wallet.metrics")
+public record WalletMetricsProperties(
+        boolean enabled,
+
+        @DefaultValue("256")
+        int hotWalletCapacity
+) {}
@@ -0,0 +1,83 @@
+package ani.foritk.controller;
+
+import ani.foritk.config.ConcurrencyLimitProperties;
+import ani.foritk.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Admits requests to {@link ConcurrencyLimited} endpoints under a separate adaptive limit per kind and
+ * rejects the excess before the handler runs, so it never waits for a database connection. The permit of
+ * an asynchronous request is released by the dispatch that completes it.
+ */
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+    private static final String PERMIT = ConcurrencyLimitInterceptor.class.getName() + ".permit";
+
+    private final Map<ConcurrencyLimited.Kind, AdaptiveConcurrencyLimit> limits =
+            new EnumMap<>(ConcurrencyLimited.Kind.class);
+    private final Map<ConcurrencyLimited.Kind, Counter> rejections = new EnumMap<>(ConcurrencyLimited.Kind.class);
+    private final ConcurrencyLimitProperties concurrencyLimitProperties;
+
+    public ConcurrencyLimitInterceptor(ConcurrencyLimitProperties concurrencyLimitProperties,
+                                       MeterRegistry meterRegistry) {
+        this.concurrencyLimitProperties = concurrencyLimitProperties;
+        for (ConcurrencyLimited.Kind kind : ConcurrencyLimited.Kind.values()) {
+            final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(concurrencyLimitProperties);
+            final String tag = kind.name().toLowerCase(Locale.ROOT);
+            limits.put(kind, limit);
+            Gauge.builder("wallet.concurrency.limit", limit, AdaptiveConcurrencyLimit::limit)
+                    .description("Current adaptive concurrency limit")
+                    .tag("kind", tag)
+                    .register(meterRegistry);
+            Gauge.builder("wallet.concurrency.in_flight", limit, AdaptiveConcurrencyLimit::inFlight)
+                    .description("Admitted requests in flight")
+                    .tag("kind", tag)
+                    .register(meterRegistry);
+            rejections.put(kind, Counter.builder("wallet.concurrency.rejections")
+                    .description("Requests rejected by the concurrency limit")
+                    .tag("kind", tag)
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod) || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        final ConcurrencyLimited limited = handlerMethod.getMethodAnnotation(ConcurrencyLimited.class);
+        if (limited == null) {
+            return true;
+        }
+        final AdaptiveConcurrencyLimit limit = limits.get(limited.value());
+        final int inFlight = limit.tryAcquire();
+        if (inFlight < 0) {
+            rejections.get(limited.value()).increment();
+            throw new ServiceOverloadedException(limited.value().name().toLowerCase(Locale.ROOT), limit.limit(),
+                    concurrencyLimitProperties.retryAfter());
+        }
+        request.setAttribute(PERMIT, new Permit(limit, System.nanoTime(), inFlight));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(PERMIT) instanceof Permit permit) {
+            request.removeAttribute(PERMIT);
+            permit.limit().release(System.nanoTime() - permit.startNanos(), permit.inFlight());
+        }
+    }
+
+    private record Permit(AdaptiveConcurrencyLimit limit, long startNanos, int inFlight) {}
+}
@@ -0,0 +1,22 @@
+package ani.foritk.controller;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Admits requests to the endpoint under the adaptive concurrency limit of its kind. A streamed response
+ * keeps its place until the stream completes. Multi-wallet lookups have a limit of their own, since
+ * their latency depends on the number of IDs and would distort the limit of single reads.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConcurrencyLimited {
+
+    Kind value();
+
+    enum Kind {
+        READ, WRITE, LOOKUP
+    }
+}
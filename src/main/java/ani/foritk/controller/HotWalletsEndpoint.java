@@ -0,0 +1,37 @@
+package ani.foritk.controller;
+
+import ani.foritk.dto.HotWalletsDto;
+import ani.foritk.service.HotWalletTracker;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /actuator/hotwallets}: the wallets that receive the most balance updates since start or the
+ * last reset, with the bound on how much each count may be overstated.
+ */
+@Component
+@Endpoint(id = "hotwallets")
+@ConditionalOnProperty(prefix = "wallet.metrics", name = "enabled", havingValue = "true")
+public class HotWalletsEndpoint {
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final HotWalletTracker hotWalletTracker;
+
+    public HotWalletsEndpoint(HotWalletTracker hotWalletTracker) {
+        this.hotWalletTracker = hotWalletTracker;
+    }
+
+    @ReadOperation
+    public HotWalletsDto hotWallets(@Nullable Integer limit) {
+        return hotWalletTracker.top(limit != null ? limit : DEFAULT_LIMIT);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        hotWalletTracker.reset();
+    }
+}
@@ -1,23 +1,54 @@
 package ani.foritk.controller;
 
+import ani.foritk.dto.BatchUpdateResultDto;
+import ani.foritk.dto.BatchUpdateWalletDto;
+import ani.foritk.dto.CreateWalletDto;
 import ani.foritk.dto.GetWalletDto;
+import ani.foritk.dto.TransferResultDto;
+import ani.foritk.dto.TransferWalletDto;
 import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.dto.WalletImportResultDto;
+import ani.foritk.dto.WalletLookupDto;
+import ani.foritk.dto.WalletLookupResultDto;
+import ani.foritk.dto.WalletOperationDto;
 import ani.foritk.entity.Wallet;
+import ani.foritk.exception.FeatureUnavailableException;
+import ani.foritk.service.WalletBatchService;
+import ani.foritk.service.WalletImportService;
+import ani.foritk.service.WalletLookupService;
+import ani.foritk.service.WalletOperationLedger;
 import ani.foritk.service.WalletService;
+import ani.foritk.service.WalletTransferService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @RestController
 @Tag(
@@ -27,47 +58,244 @@ import java.util.UUID;
 @RequestMapping("/api/v1")
 public class WalletController {
     private final WalletService walletService;
+    private final WalletBatchService walletBatchService;
+    private final WalletTransferService walletTransferService;
+    private final WalletLookupService walletLookupService;
+    private final WalletImportService walletImportService;
+    private final WalletOperationLedger walletOperationLedger;
+    private final ObjectMapper objectMapper;
 
-    public WalletController(WalletService walletService) {
+    public WalletController(WalletService walletService,
+                            WalletBatchService walletBatchService,
+                            WalletTransferService walletTransferService,
+                            WalletLookupService walletLookupService,
+                            WalletImportService walletImportService,
+                            Optional<WalletOperationLedger> walletOperationLedger,
+                            ObjectMapper objectMapper) {
         this.walletService = walletService;
+        this.walletBatchService = walletBatchService;
+        this.walletTransferService = walletTransferService;
+        this.walletLookupService = walletLookupService;
+        this.walletImportService = walletImportService;
+        this.walletOperationLedger = walletOperationLedger.orElse(null);
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/wallets/{WALLET_UUID}")
+    @ConcurrencyLimited(ConcurrencyLimited.Kind.READ)
     @Operation(summary = "Get wallet by ID",
             description = """
-                    This operation returns the wallet for the given ID.""",
+                    This operation returns the wallet for the given ID.
+                    Pass strict=true to bypass the balance cache and read the latest committed balance.""",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Operation is successful"),
                     @ApiResponse(responseCode = "400", description = "Invalid input",
                             content = @Content(schema = @Schema())),
                     @ApiResponse(responseCode = "404", description = "Wallet is not found",
                             content = @Content(schema = @Schema())),
+                    @ApiResponse(responseCode = "429", description = "Service is overloaded, see Retry-After",
+                            content = @Content(schema = @Schema())),
                     @ApiResponse(responseCode = "500", description = "Server error",
                             content = @Content(schema = @Schema()))
             })
-    public GetWalletDto getById(@PathVariable UUID WALLET_UUID) {
-        final Wallet wallet = walletService.getWallet(WALLET_UUID);
+    public GetWalletDto getById(@PathVariable UUID WALLET_UUID,
+                                @RequestParam(defaultValue = "false") boolean strict) {
+        final Wallet wallet = strict
+                ? walletService.getWalletStrict(WALLET_UUID)
+                : walletService.getWallet(WALLET_UUID);
         return constructWalletDto(wallet);
     }
 
+    @GetMapping("/wallets/{WALLET_UUID}/operations")
+    @Operation(summary = "Export the operation history of a wallet",
+            description = """
+                    This operation streams the deposits and withdrawals of the wallet as newline-delimited JSON
+                    in the order they were recorded. Pass the id of the last operation received as `after`
+                    to continue an interrupted export; no operation is skipped, because an export only returns
+                    operations once every operation with a lower id is committed.""",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Operations are streamed",
+                            content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                    schema = @Schema(implementation = WalletOperationDto.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid input",
+                            content = @Content(schema = @Schema())),
+                    @ApiResponse(responseCode = "404", description = "Wallet is not found",
+                            content = @Content(schema = @Schema())),
+                    @ApiResponse(responseCode = "501", description = "Operation ledger is disabled",
+                            content = @Content(schema = @Schema()))
+            })
+    public ResponseEntity<StreamingResponseBody> getOperations(
+            @PathVariable UUID WALLET_UUID,
+            @Parameter(description = "Return operations with a greater id")
+            @RequestParam(defaultValue = "0") long after,
+            @Parameter(description = "Maximum number of operations, all by default")
+            @RequestParam(required = false) Long limit) {
+        if (walletOperationLedger == null) {
+            throw new FeatureUnavailableException("The operation ledger is disabled");
+        }
+        walletService.getWalletStrict(WALLET_UUID);
+        final long maxOperations = limit != null ? limit : Long.MAX_VALUE;
+        return ndjson((Consumer<WalletOperationDto> line) ->
+                walletOperationLedger.export(WALLET_UUID, after, maxOperations, line));
+    }
+
+    @PostMapping("/wallets/lookup")
+    @ConcurrencyLimited(ConcurrencyLimited.Kind.LOOKUP)
+    @Operation(summary = "Get balances of several wallets",
+            description = """
+                    This operation streams one newline-delimited JSON object per distinct ID as the balances
+                    are read. Unknown IDs are reported with found=false instead of failing the request.""",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Balances are streamed",
+                            content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                    schema = @Schema(implementation = WalletLookupResultDto.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid input",
+                            content = @Content(schema = @Schema())),
+                    @ApiResponse(responseCode = "429", description = "Service is overloaded, see Retry-After",
+                            content = @Content(schema = @Schema())),
+                    @ApiResponse(responseCode = "500", description = "Server error",
+                            content = @Content(schema = @Schema()))
+            })
+    public ResponseEntity<StreamingResponseBody> lookupWallets(@Valid @RequestBody WalletLookupDto walletLookupDto) {
+        return ndjson((Consumer<WalletLookupResultDto> line) ->
+                walletLookupService.lookup(walletLookupDto.valletIds(), line));
+    }
+
+    @PostMapping("/wallets")
+    @ResponseStatus(HttpStatus.CREATED)
+    @ConcurrencyLimited(ConcurrencyLimited.Kind.WRITE)
+    @Operation(summary = "Create wallet",
+            description = """
+                    This operation creates a wallet with the given ID, or a random one if it is omitted.
+                    The initial balance defaults to zero.""",
+            responses = {
+                    @ApiResponse(responseCode = "201", description = "Wallet is created"),
+                    @ApiResponse(responseCode = "400", description = "Invalid input",
+                            content = @Content(schema = @Schema())),
+                    @ApiResponse(responseCode = "409", description = "Wallet already exists",
+                            content = @Content(schema = @Schema())),
+                    @ApiResponse(responseCode = "429", description = "Service is overloaded, see Retry-After",
+                            content = @Content(schema = @Schema())),
+                    @ApiResponse(responseCode = "500", description = "Server error",
+                            content = @Content(schema = @Schema()))
+            })
+    public GetWalletDto createWallet(@Valid @RequestBody CreateWalletDto createWalletDto) {
+        return constructWalletDto(walletService.createWallet(createWalletDto));
+    }
+
+    @PostMapping(value = "/wallets/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Import wallets",
+            description = """
+                    This operation bulk-loads wallets from a text/csv body with `valletId,initialBalance` rows
+                    (header optional) or an application/x-ndjson body with one wallet object per line.
+                    Rows are committed in chunks; wallets that already exist are skipped and counted as
+                    duplicates, so a failed import can be repeated with the same file.""",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Wallets are imported"),
+                    @ApiResponse(responseCode = "400", description = "Invalid row, earlier chunks are imported",
+                            content = @Content(schema = @Schema())),
+                    @ApiResponse(responseCode = "500", description = "Server error",
+                            content = @Content(schema = @Schema()))
+            })
+    public WalletImportResultDto importWallets(HttpServletRequest request) throws IOException {
+        final WalletImportService.Format format = MediaType.APPLICATION_NDJSON
+                .isCompatibleWith(MediaType.parseMediaType(request.getContentType()))
+                ? WalletImportService.Format.NDJSON
+                : WalletImportService.Format.CSV;
+        return walletImportService.importWallets(request.getInputStream(), format);
+    }
 
     @PostMapping("/wallet")
+    @ConcurrencyLimited(ConcurrencyLimited.Kind.WRITE)
     @Operation(summary = "Update wallet balance",
             description = """
                     This operation updates the balance for the specified identifier:
-                    replenishes the balance or writes off funds.""",
+                    replenishes the balance or writes off funds.
+                    A request repeated with the same Idempotency-Key returns the original response.""",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Balance is updated"),
                     @ApiResponse(responseCode = "400", description = "Invalid input",
                             content = @Content(schema = @Schema())),
+                    @ApiResponse(responseCode = "422", description = "Idempotency key was used for another request",
+                            content = @Content(schema = @Schema())),
+                    @ApiResponse(responseCode = "429", description = "Wallet or service is overloaded",
+                            content = @Content(schema = @Schema())),
                     @ApiResponse(responseCode = "500", description = "Server error",
                             content = @Content(schema = @Schema()))
             })
-    public GetWalletDto updateWallet(@Valid @RequestBody UpdateWalletDto updateWalletDto) {
-        final Wallet wallet = walletService.updateBalance(updateWalletDto);
+    public GetWalletDto updateWallet(@Valid @RequestBody UpdateWalletDto updateWalletDto,
+                                     @Parameter(description = "Repeating a key returns the original response")
+                                     @RequestHeader(name = "Idempotency-Key", required = false)
+                                     String idempotencyKey) {
+        final Wallet wallet = walletService.updateBalance(updateWalletDto, idempotencyKey);
         return constructWalletDto(wallet);
     }
 
+    @PostMapping("/wallets/batch")
+    @ConcurrencyLimited(ConcurrencyLimited.Kind.WRITE)
+    @Operation(summary = "Update balances of several wallets",
+            description = """
+                    This operation applies a list of deposits and withdrawals in one transaction.
+                    ALL_OR_NOTHING (default) commits only if every operation succeeds,
+                    BEST_EFFORT commits the successful operations and reports the rest.""",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Batch is processed, see per-item results"),
+                    @ApiResponse(responseCode = "400", description = "Invalid input",
+                            content = @Content(schema = @Schema())),
+                    @ApiResponse(responseCode = "429", description = "Service is overloaded, see Retry-After",
+                            content = @Content(schema = @Schema())),
+                    @ApiResponse(responseCode = "500", description = "Server error",
+                            content = @Content(schema = @Schema()))
+            })
+    public BatchUpdateResultDto updateWallets(@Valid @RequestBody BatchUpdateWalletDto batchUpdateWalletDto) {
+        return walletBatchService.updateBalances(batchUpdateWalletDto);
+    }
+
+    @PostMapping("/wallets/transfer")
+    @ConcurrencyLimited(ConcurrencyLimited.Kind.WRITE)
+    @Operation(summary = "Transfer funds between wallets",
+            description = """
+                    This operation debits one wallet and credits another in a single transaction.""",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Funds are transferred"),
+                    @ApiResponse(responseCode = "400", description = "Invalid input or insufficient funds",
+                            content = @Content(schema = @Schema())),
+                    @ApiResponse(responseCode = "404", description = "Wallet is not found",
+                            content = @Content(schema = @Schema())),
+                    @ApiResponse(responseCode = "409", description = "Transfer conflicted with concurrent updates",
+                            content = @Content(schema = @Schema())),
+                    @ApiResponse(responseCode = "429", description = "Service is overloaded, see Retry-After",
+                            content = @Content(schema = @Schema())),
+                    @ApiResponse(responseCode = "500", description = "Server error",
+                            content = @Content(schema = @Schema()))
+            })
+    public TransferResultDto transfer(@Valid @RequestBody TransferWalletDto transferWalletDto) {
+        final List<Wallet> wallets = walletTransferService.transfer(transferWalletDto);
+        return new TransferResultDto(constructWalletDto(wallets.get(0)), constructWalletDto(wallets.get(1)));
+    }
+
+    /**
+     * Streams the values passed to the line consumer as newline-delimited JSON, written as they arrive.
+     */
+    private <T> ResponseEntity<StreamingResponseBody> ndjson(Consumer<Consumer<T>> producer) {
+        final StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                producer.accept(value -> {
+                    try {
+                        generator.writeObject(value);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     private GetWalletDto constructWalletDto(Wallet wallet) {
         return new GetWalletDto(
                 wallet.getId(),
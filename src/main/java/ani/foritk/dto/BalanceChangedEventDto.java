@@ -0,0 +1,15 @@
+package ani.foritk.dto;
+
+import ani.foritk.entity.Money;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record BalanceChangedEventDto(
+        long id,
+        UUID valletId,
+        OperationType operationType,
+        Money amount,
+        Money balance,
+        Instant createdAt
+) {}
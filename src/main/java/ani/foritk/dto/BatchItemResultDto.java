@@ -0,0 +1,15 @@
+package ani.foritk.dto;
+
+import ani.foritk.entity.Money;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.UUID;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchItemResultDto(
+        int index,
+        UUID valletId,
+        BatchItemStatus status,
+        Money balance,
+        String message
+) {}
\ No newline at end of file
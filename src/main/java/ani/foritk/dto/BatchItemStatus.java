@@ -0,0 +1,8 @@
+package ani.foritk.dto;
+
+public enum BatchItemStatus {
+    APPLIED,
+    ROLLED_BACK,
+    NOT_FOUND,
+    INSUFFICIENT_FUNDS
+}
\ No newline at end of file
@@ -0,0 +1,6 @@
+package ani.foritk.dto;
+
+public enum BatchMode {
+    ALL_OR_NOTHING,
+    BEST_EFFORT
+}
\ No newline at end of file
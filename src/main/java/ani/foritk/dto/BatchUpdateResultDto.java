@@ -0,0 +1,9 @@
+package ani.foritk.dto;
+
+import java.util.List;
+
+public record BatchUpdateResultDto(
+        BatchMode mode,
+        boolean committed,
+        List<BatchItemResultDto> results
+) {}
\ No newline at end of file
@@ -0,0 +1,21 @@
+package ani.foritk.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BatchUpdateWalletDto(
+        @NotEmpty
+        @Size(max = 10000)
+        List<@Valid UpdateWalletDto> operations,
+
+        BatchMode mode
+) {
+    public BatchUpdateWalletDto {
+        if (mode == null) {
+            mode = BatchMode.ALL_OR_NOTHING;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,12 @@
+package ani.foritk.dto;
+
+import ani.foritk.entity.Money;
+
+import java.util.UUID;
+
+public record CreateWalletDto(
+        UUID valletId,
+
+        @NonNegativeAmount
+        Money initialBalance
+) {}
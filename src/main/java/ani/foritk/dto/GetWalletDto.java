@@ -1,8 +1,8 @@
 package ani.foritk.dto;
 
+import ani.foritk.entity.Money;
 import jakarta.validation.constraints.NotNull;
 
-import java.math.BigDecimal;
 import java.util.UUID;
 
 public record GetWalletDto(
@@ -10,5 +10,5 @@ public record GetWalletDto(
         UUID valletId,
 
         @NotNull
-        BigDecimal balance
+        Money balance
 ) {}
\ No newline at end of file
@@ -0,0 +1,11 @@
+package ani.foritk.dto;
+
+import java.util.UUID;
+
+public record HotWalletDto(
+        UUID valletId,
+
+        long updates,
+
+        long maxOverestimate
+) {}
@@ -0,0 +1,11 @@
+package ani.foritk.dto;
+
+import java.util.List;
+
+public record HotWalletsDto(
+        long observedUpdates,
+
+        int capacity,
+
+        List<HotWalletDto> wallets
+) {}
@@ -0,0 +1,6 @@
+package ani.foritk.dto;
+
+public record TransferResultDto(
+        GetWalletDto from,
+        GetWalletDto to
+) {}
@@ -0,0 +1,26 @@
+package ani.foritk.dto;
+
+import ani.foritk.entity.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.UUID;
+
+public record TransferWalletDto(
+        @NotNull
+        UUID fromValletId,
+
+        @NotNull
+        UUID toValletId,
+
+        @NotNull
+        @PositiveAmount
+        Money amount
+) {
+    @JsonIgnore
+    @AssertTrue(message = "must differ from fromValletId")
+    public boolean isToValletIdDistinct() {
+        return fromValletId == null || !fromValletId.equals(toValletId);
+    }
+}
@@ -1,9 +1,8 @@
 package ani.foritk.dto;
 
-import jakarta.validation.constraints.DecimalMin;
+import ani.foritk.entity.Money;
 import jakarta.validation.constraints.NotNull;
 
-import java.math.BigDecimal;
 import java.util.UUID;
 
 public record UpdateWalletDto(
@@ -14,6 +13,6 @@ public record UpdateWalletDto(
         OperationType operationType,
 
         @NotNull
-        @DecimalMin(value = "0.01")
-        BigDecimal amount
+        @PositiveAmount
+        Money amount
 ) {}
\ No newline at end of file
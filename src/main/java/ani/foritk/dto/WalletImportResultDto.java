@@ -0,0 +1,8 @@
+package ani.foritk.dto;
+
+public record WalletImportResultDto(
+        long rows,
+        long imported,
+        long duplicates,
+        long elapsedMillis
+) {}
@@ -0,0 +1,14 @@
+package ani.foritk.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+public record WalletLookupDto(
+        @NotEmpty
+        @Size(max = 10000)
+        List<@NotNull UUID> valletIds
+) {}
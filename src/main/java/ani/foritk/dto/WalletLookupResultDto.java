@@ -0,0 +1,21 @@
+package ani.foritk.dto;
+
+import ani.foritk.entity.Money;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.UUID;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record WalletLookupResultDto(
+        UUID valletId,
+        boolean found,
+        Money balance
+) {
+    public static WalletLookupResultDto found(UUID valletId, Money balance) {
+        return new WalletLookupResultDto(valletId, true, balance);
+    }
+
+    public static WalletLookupResultDto missing(UUID valletId) {
+        return new WalletLookupResultDto(valletId, false, null);
+    }
+}
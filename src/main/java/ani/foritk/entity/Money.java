@@ -0,0 +1,207 @@
+package ani.foritk.entity;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount of money as a whole number of minor units with two decimal places. Arithmetic is checked
+ * {@code long} arithmetic that throws {@link ArithmeticException} on overflow, and the only object it
+ * creates is the 24-byte result, which the JIT scalar-replaces when it does not escape. In JSON an
+ * amount is a decimal number; more than two decimal places are rounded half up.
+ */
+@Schema(type = "number", format = "decimal", example = "100.00")
+@JsonSerialize(using = Money.Serializer.class)
+@JsonDeserialize(using = Money.Deserializer.class)
+public final class Money implements Comparable<Money> {
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+
+    private static final long MINOR_UNITS_PER_MAJOR = 100;
+    private static final int MAX_EXPONENT = 20;
+    private static final int MAX_EXPONENT_DIGITS = 40;
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    public static Money ofMinorUnits(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    public static Money of(BigDecimal amount) {
+        return ofMinorUnits(amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    public static Money of(String amount) {
+        return parse(amount.toCharArray(), 0, amount.length());
+    }
+
+    /**
+     * Parses a plain decimal such as {@code -12.345} without allocating; exponent notation falls back
+     * to {@link BigDecimal}, and only for exponents within ±20 and at most 40 digits, so that rounding
+     * never works on a number longer than that.
+     *
+     * @throws NumberFormatException if the text is not a decimal number
+     * @throws ArithmeticException if the amount does not fit into a {@code long} of minor units, or its
+     *                             exponent or digits are out of the range above
+     */
+    public static Money parse(char[] text, int offset, int length) {
+        final int end = offset + length;
+        int i = offset;
+        final boolean negative = i < end && text[i] == '-';
+        if (negative || i < end && text[i] == '+') {
+            i++;
+        }
+        long units = 0;
+        int digits = 0;
+        while (i < end && isDigit(text[i])) {
+            units = Math.addExact(Math.multiplyExact(units, 10), text[i++] - '0');
+            digits++;
+        }
+        int fractionDigits = 0;
+        boolean roundUp = false;
+        if (i < end && text[i] == '.') {
+            i++;
+            while (i < end && isDigit(text[i])) {
+                if (fractionDigits < SCALE) {
+                    units = Math.addExact(Math.multiplyExact(units, 10), text[i] - '0');
+                } else if (fractionDigits == SCALE) {
+                    roundUp = text[i] >= '5';
+                }
+                fractionDigits++;
+                digits++;
+                i++;
+            }
+        }
+        if (i < end && (text[i] == 'e' || text[i] == 'E')) {
+            if (digits > MAX_EXPONENT_DIGITS) {
+                throw new ArithmeticException("Too many digits: " + digits);
+            }
+            checkExponent(text, i + 1, end);
+            return of(new BigDecimal(text, offset, length));
+        }
+        if (i != end || digits == 0) {
+            throw new NumberFormatException("Not a decimal amount: " + new String(text, offset, length));
+        }
+        for (int scale = fractionDigits; scale < SCALE; scale++) {
+            units = Math.multiplyExact(units, 10);
+        }
+        if (roundUp) {
+            units = Math.incrementExact(units);
+        }
+        return ofMinorUnits(negative ? -units : units);
+    }
+
+    public long minorUnits() {
+        return minorUnits;
+    }
+
+    public Money plus(Money other) {
+        return ofMinorUnits(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinorUnits(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public boolean isLessThan(Money other) {
+        return minorUnits < other.minorUnits;
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof Money money && minorUnits == money.minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        final long major = minorUnits / MINOR_UNITS_PER_MAJOR;
+        final long minor = Math.abs(minorUnits % MINOR_UNITS_PER_MAJOR);
+        final String sign = minorUnits < 0 && major == 0 ? "-" : "";
+        return sign + major + (minor < 10 ? ".0" : ".") + minor;
+    }
+
+    private static void checkExponent(char[] text, int start, int end) {
+        int i = start;
+        if (i < end && (text[i] == '-' || text[i] == '+')) {
+            i++;
+        }
+        int exponent = 0;
+        while (i < end && isDigit(text[i])) {
+            exponent = exponent * 10 + text[i++] - '0';
+            if (exponent > MAX_EXPONENT) {
+                throw new ArithmeticException("Exponent out of range: " + new String(text, start, end - start));
+            }
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    static final class Serializer extends StdScalarSerializer<Money> {
+
+        Serializer() {
+            super(Money.class);
+        }
+
+        @Override
+        public void serialize(Money value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeNumber(value.toString());
+        }
+    }
+
+    static final class Deserializer extends StdScalarDeserializer<Money> {
+
+        Deserializer() {
+            super(Money.class);
+        }
+
+        @Override
+        public Money deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            final JsonToken token = p.currentToken();
+            if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT
+                    && token != JsonToken.VALUE_STRING) {
+                return (Money) ctxt.handleUnexpectedToken(Money.class, p);
+            }
+            try {
+                return parse(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+            } catch (ArithmeticException | NumberFormatException e) {
+                return (Money) ctxt.handleWeirdStringValue(Money.class, p.getText(),
+                        "not a decimal amount within %s", Long.MAX_VALUE / MINOR_UNITS_PER_MAJOR);
+            }
+        }
+    }
+}
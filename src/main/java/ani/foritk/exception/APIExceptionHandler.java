@@ -1,5 +1,6 @@
 package ani.foritk.exception;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
@@ -11,28 +12,120 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.time.Duration;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @RestControllerAdvice
 @Slf4j
 public class APIExceptionHandler {
+    private static final HttpHeaders JSON_HEADERS;
+
+    static {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        JSON_HEADERS = HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+
+    private static final ResponseEntity<APIError> WALLET_BUSY_RESPONSE = new ResponseEntity<>(
+            new APIError(HttpStatus.TOO_MANY_REQUESTS, "The wallet has too many updates in flight",
+                    "Repeat the request later"),
+            JSON_HEADERS, HttpStatus.TOO_MANY_REQUESTS);
+
+    private final RejectionLog rejectionLog = new RejectionLog(Duration.ofSeconds(10));
+    private final Map<OverloadedResponseKey, ResponseEntity<APIError>> overloadedResponses =
+            new ConcurrentHashMap<>();
 
     @ExceptionHandler(EntityNotFoundException.class)
     public ResponseEntity<APIError> handleEntityNotFound(EntityNotFoundException ex) {
-        log.error(ex.getMessage(), ex);
-        final HttpStatus status = HttpStatus.NOT_FOUND;
-        final APIError apiError = new APIError(status, ex.getMessage());
-        return constructApiErrorWithHttpStatus(apiError);
+        final String message = ex.getMessage();
+        rejectionLog.record(RejectionLog.Kind.WALLET_NOT_FOUND, message);
+        return constructApiErrorWithHttpStatus(new APIError(HttpStatus.NOT_FOUND, message));
     }
 
     @ExceptionHandler(InsufficientFundsException.class)
     public ResponseEntity<APIError> handleInsufficientFunds(InsufficientFundsException ex) {
-        log.error(ex.getMessage(), ex);
-        final HttpStatus status = HttpStatus.BAD_REQUEST;
-        final APIError apiError = new APIError(status, ex.getMessage());
+        final String message = ex.getMessage();
+        rejectionLog.record(RejectionLog.Kind.INSUFFICIENT_FUNDS, message);
+        return constructApiErrorWithHttpStatus(new APIError(HttpStatus.BAD_REQUEST, message));
+    }
+
+    @ExceptionHandler(ConcurrentUpdateException.class)
+    public ResponseEntity<APIError> handleConcurrentUpdate(ConcurrentUpdateException ex) {
+        log.warn(ex.getMessage());
+        final APIError apiError = new APIError(
+                HttpStatus.CONFLICT,
+                ex.getMessage(),
+                "Repeat the request later"
+        );
         return constructApiErrorWithHttpStatus(apiError);
+    }
 
+    /**
+     * Bulkhead rejections come in bursts on a hot wallet, so they share one prebuilt response; the ID of
+     * the wallet goes to the rejection log.
+     */
+    @ExceptionHandler(WalletBusyException.class)
+    public ResponseEntity<APIError> handleWalletBusy(WalletBusyException ex) {
+        rejectionLog.record(RejectionLog.Kind.WALLET_BUSY, ex.getMessage());
+        return WALLET_BUSY_RESPONSE;
+    }
+
+    /**
+     * Overload rejections come in bursts, so their responses are built once per kind and retry delay; the
+     * current limit goes to the rejection log and the {@code wallet.concurrency.limit} gauge instead.
+     */
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<APIError> handleServiceOverloaded(ServiceOverloadedException ex) {
+        rejectionLog.record(RejectionLog.Kind.OVERLOADED, ex.getMessage());
+        return overloadedResponses.computeIfAbsent(new OverloadedResponseKey(ex.getKind(), ex.getRetryAfter()),
+                APIExceptionHandler::overloadedResponse);
+    }
+
+    @ExceptionHandler(InvalidIdempotencyKeyException.class)
+    public ResponseEntity<APIError> handleInvalidIdempotencyKey(InvalidIdempotencyKeyException ex) {
+        final APIError apiError = new APIError(HttpStatus.BAD_REQUEST, ex.getMessage());
+        return constructApiErrorWithHttpStatus(apiError);
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<APIError> handleIdempotencyKeyReused(IdempotencyKeyReusedException ex) {
+        log.warn(ex.getMessage());
+        final APIError apiError = new APIError(
+                HttpStatus.UNPROCESSABLE_ENTITY,
+                ex.getMessage(),
+                "Use a new Idempotency-Key for a different request"
+        );
+        return constructApiErrorWithHttpStatus(apiError);
+    }
+
+    @ExceptionHandler(WalletAlreadyExistsException.class)
+    public ResponseEntity<APIError> handleWalletAlreadyExists(WalletAlreadyExistsException ex) {
+        final APIError apiError = new APIError(HttpStatus.CONFLICT, ex.getMessage());
+        return constructApiErrorWithHttpStatus(apiError);
+    }
+
+    @ExceptionHandler(InvalidImportException.class)
+    public ResponseEntity<APIError> handleInvalidImport(InvalidImportException ex) {
+        log.warn(ex.getMessage());
+        final APIError apiError = new APIError(
+                HttpStatus.BAD_REQUEST,
+                ex.getMessage(),
+                "Chunks before the invalid row are imported; fix it and repeat the import, existing IDs are skipped"
+        );
+        return constructApiErrorWithHttpStatus(apiError);
+    }
+
+    @ExceptionHandler(FeatureUnavailableException.class)
+    public ResponseEntity<APIError> handleFeatureUnavailable(FeatureUnavailableException ex) {
+        final APIError apiError = new APIError(
+                HttpStatus.NOT_IMPLEMENTED,
+                ex.getMessage(),
+                "The operation is not enabled in this deployment"
+        );
+        return constructApiErrorWithHttpStatus(apiError);
     }
 
     @ExceptionHandler(HttpMessageNotReadableException.class)
@@ -63,9 +156,24 @@ public class APIExceptionHandler {
         return constructApiErrorWithHttpStatus(apiError);
     }
 
+    @PreDestroy
+    public void stop() {
+        rejectionLog.close();
+    }
+
     private ResponseEntity<APIError> constructApiErrorWithHttpStatus(APIError apiError) {
-        final var headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        return new ResponseEntity<>(apiError, headers, apiError.status());
+        return new ResponseEntity<>(apiError, JSON_HEADERS, apiError.status());
     }
+
+    private static ResponseEntity<APIError> overloadedResponse(OverloadedResponseKey key) {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.addAll(JSON_HEADERS);
+        final long retryAfterMillis = key.retryAfter().toMillis();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (retryAfterMillis + 999) / 1000)));
+        final APIError apiError = new APIError(HttpStatus.TOO_MANY_REQUESTS,
+                "Too many " + key.kind() + " requests in flight", "Repeat the request later");
+        return new ResponseEntity<>(apiError, HttpHeaders.readOnlyHttpHeaders(headers), apiError.status());
+    }
+
+    private record OverloadedResponseKey(String kind, Duration retryAfter) {}
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package ani.foritk.exception;
+
+/**
+ * Rejection of a valid request for an operation that the configured features of this deployment do not
+ * support, such as a batch update on the wallet journal.
+ */
+public class FeatureUnavailableException extends RuntimeException {
+    public FeatureUnavailableException(String message) {
+        super(message);
+    }
+}
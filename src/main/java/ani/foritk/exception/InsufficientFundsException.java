@@ -1,7 +1,36 @@
 package ani.foritk.exception;
 
+import ani.foritk.entity.Money;
+
+import java.util.UUID;
+
+/**
+ * Rejection of a withdrawal that exceeds the balance. It is an expected outcome rather than a fault, so
+ * it carries no stack trace and formats its message only when asked.
+ */
 public class InsufficientFundsException extends RuntimeException {
+    private final UUID walletId;
+    private final Money amount;
+    private String message;
+
     public InsufficientFundsException(String message) {
-        super(message);
+        super(message, null, false, false);
+        this.walletId = null;
+        this.amount = null;
+        this.message = message;
+    }
+
+    public InsufficientFundsException(UUID walletId, Money amount) {
+        super(null, null, false, false);
+        this.walletId = walletId;
+        this.amount = amount;
+    }
+
+    @Override
+    public String getMessage() {
+        if (message == null) {
+            message = "Wallet with valletId " + walletId + " cannot withdraw " + amount;
+        }
+        return message;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,7 @@
+package ani.foritk.exception;
+
+public class InvalidImportException extends RuntimeException {
+    public InvalidImportException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,72 @@
+package ani.foritk.exception;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logs expected rejections as one summary line per kind and interval instead of one line per request,
+ * so during a burst of rejections each one costs a counter increment and the log volume stays flat.
+ * The summaries are written by a background thread at the end of every interval and on {@link #close}.
+ */
+@Slf4j
+public final class RejectionLog implements AutoCloseable {
+    private final LongAdder[] counts = new LongAdder[Kind.values().length];
+    private final String[] latestMessages = new String[Kind.values().length];
+    private final ScheduledExecutorService flushExecutor;
+
+    public RejectionLog(Duration interval) {
+        this();
+        flushExecutor.scheduleAtFixedRate(this::flush, interval.toMillis(), interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    RejectionLog() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+        this.flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "rejection-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void record(Kind kind, String message) {
+        counts[kind.ordinal()].increment();
+        latestMessages[kind.ordinal()] = message;
+    }
+
+    @Override
+    public void close() {
+        flushExecutor.shutdownNow();
+        flush();
+    }
+
+    synchronized void flush() {
+        for (Kind kind : Kind.values()) {
+            final long count = counts[kind.ordinal()].sumThenReset();
+            if (count > 0) {
+                log.info("Rejected {} request(s) for {}, latest: {}",
+                        count, kind.description, latestMessages[kind.ordinal()]);
+            }
+        }
+    }
+
+    public enum Kind {
+        INSUFFICIENT_FUNDS("insufficient funds"),
+        WALLET_NOT_FOUND("unknown wallets"),
+        OVERLOADED("the concurrency limit"),
+        WALLET_BUSY("busy wallets");
+
+        private final String description;
+
+        Kind(String description) {
+            this.description = description;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ani.foritk.exception;
+
+import java.time.Duration;
+
+/**
+ * Rejection of a request that exceeds the concurrency limit. It is thrown in bulk when the service is
+ * overloaded, so it carries no stack trace and formats its message only when asked.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+    private final String kind;
+    private final int limit;
+    private final Duration retryAfter;
+    private String message;
+
+    public ServiceOverloadedException(String kind, int limit, Duration retryAfter) {
+        super(null, null, false, false);
+        this.kind = kind;
+        this.limit = limit;
+        this.retryAfter = retryAfter;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    @Override
+    public String getMessage() {
+        if (message == null) {
+            message = "Too many " + kind + " requests in flight, the current limit is " + limit;
+        }
+        return message;
+    }
+}
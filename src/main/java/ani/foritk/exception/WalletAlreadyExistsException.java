@@ -0,0 +1,9 @@
+package ani.foritk.exception;
+
+import java.util.UUID;
+
+public class WalletAlreadyExistsException extends RuntimeException {
+    public WalletAlreadyExistsException(UUID walletId) {
+        super("Wallet with ID " + walletId + " already exists");
+    }
+}
@@ -0,0 +1,11 @@
+package ani.foritk.exception;
+
+/**
+ * Rejection of an update by the wallet bulkhead. A hot wallet produces these in bursts, so like
+ * {@link ServiceOverloadedException} it carries no stack trace.
+ */
+public class WalletBusyException extends RuntimeException {
+    public WalletBusyException(String message) {
+        super(message, null, false, false);
+    }
+}
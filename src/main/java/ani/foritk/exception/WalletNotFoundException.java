@@ -0,0 +1,31 @@
+package ani.foritk.exception;
+
+import jakarta.persistence.EntityNotFoundException;
+
+import java.util.UUID;
+
+/**
+ * {@link EntityNotFoundException} for a wallet ID. Unknown wallets are an expected outcome rather than
+ * a fault, so the exception carries no stack trace and formats its message only when asked.
+ */
+public class WalletNotFoundException extends EntityNotFoundException {
+    private final UUID walletId;
+    private String message;
+
+    public WalletNotFoundException(UUID walletId) {
+        this.walletId = walletId;
+    }
+
+    @Override
+    public String getMessage() {
+        if (message == null) {
+            message = "Wallet with ID " + walletId + " is not found";
+        }
+        return message;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
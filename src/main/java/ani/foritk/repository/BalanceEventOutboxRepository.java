@@ -0,0 +1,95 @@
+package ani.foritk.repository;
+
+import ani.foritk.dto.BalanceChangedEventDto;
+import ani.foritk.dto.OperationType;
+import ani.foritk.entity.Money;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.ToIntFunction;
+
+@Repository
+public class BalanceEventOutboxRepository {
+    private static final String INSERT = "INSERT INTO balance_event_outbox "
+            + "(partition, wallet_id, operation_type, amount, balance) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BalanceEventOutboxRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public void insert(int partition, WalletOperationRecord record) {
+        jdbcTemplate.update(INSERT, ps -> setValues(ps, partition, record));
+    }
+
+    public void insertAll(List<WalletOperationRecord> records, ToIntFunction<UUID> partitionOf) {
+        jdbcTemplate.batchUpdate(INSERT, records, records.size(),
+                (ps, record) -> setValues(ps, partitionOf.applyAsInt(record.walletId()), record));
+    }
+
+    public void createPartitions(int partitions) {
+        jdbcTemplate.update("INSERT INTO balance_event_relay (partition) "
+                + "SELECT generate_series(0, ? - 1) ON CONFLICT DO NOTHING", partitions);
+    }
+
+    /**
+     * Locks the relay row of the least recently relayed partition that has events and no other relay
+     * worker, until the end of the current transaction.
+     */
+    public Optional<Integer> claimPartition() {
+        return jdbcTemplate.query(
+                "SELECT r.partition FROM balance_event_relay r "
+                        + "WHERE EXISTS (SELECT 1 FROM balance_event_outbox e WHERE e.partition = r.partition) "
+                        + "ORDER BY r.relayed_at LIMIT 1 FOR UPDATE OF r SKIP LOCKED",
+                (rs, rowNum) -> rs.getInt(1)
+        ).stream().findFirst();
+    }
+
+    public List<BalanceChangedEventDto> findOldest(int partition, int limit) {
+        return jdbcTemplate.query(
+                "SELECT id, wallet_id, operation_type, amount, balance, created_at FROM balance_event_outbox "
+                        + "WHERE partition = ? ORDER BY id LIMIT ?",
+                (rs, rowNum) -> new BalanceChangedEventDto(
+                        rs.getLong("id"),
+                        rs.getObject("wallet_id", UUID.class),
+                        OperationType.valueOf(rs.getString("operation_type")),
+                        Money.ofMinorUnits(rs.getLong("amount")),
+                        WalletOperationRecord.balance(rs),
+                        rs.getTimestamp("created_at").toInstant()
+                ),
+                partition,
+                limit
+        );
+    }
+
+    private static void setValues(PreparedStatement ps, int partition, WalletOperationRecord record)
+            throws SQLException {
+        ps.setInt(1, partition);
+        ps.setObject(2, record.walletId());
+        ps.setString(3, record.operationType().name());
+        ps.setLong(4, record.amount().minorUnits());
+        record.setBalance(ps, 5);
+    }
+
+    /**
+     * Deletes the relayed events and moves the partition to the back of the relay order.
+     */
+    public void markRelayed(int partition, List<BalanceChangedEventDto> events) {
+        final Long[] ids = events.stream().map(BalanceChangedEventDto::id).toArray(Long[]::new);
+        jdbcTemplate.update(connection -> {
+            final PreparedStatement statement = connection.prepareStatement(
+                    "DELETE FROM balance_event_outbox WHERE partition = ? AND id = ANY (?)");
+            statement.setInt(1, partition);
+            statement.setArray(2, connection.createArrayOf("bigint", ids));
+            return statement;
+        });
+        jdbcTemplate.update("UPDATE balance_event_relay SET relayed_at = now() WHERE partition = ?", partition);
+    }
+}
@@ -0,0 +1,60 @@
+package ani.foritk.repository;
+
+import ani.foritk.dto.OperationType;
+import ani.foritk.entity.Money;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public class IdempotencyKeyRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdempotencyKeyRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public Optional<IdempotencyRecord> find(String key) {
+        return jdbcTemplate.query(
+                "SELECT key, wallet_id, operation_type, amount, balance FROM idempotency_key WHERE key = ?",
+                (rs, rowNum) -> new IdempotencyRecord(
+                        rs.getString("key"),
+                        rs.getObject("wallet_id", UUID.class),
+                        OperationType.valueOf(rs.getString("operation_type")),
+                        Money.ofMinorUnits(rs.getLong("amount")),
+                        Money.ofMinorUnits(rs.getLong("balance"))
+                ),
+                key
+        ).stream().findFirst();
+    }
+
+    /**
+     * Returns false if the key is already taken. A concurrent insert of the same key blocks until the
+     * other transaction ends, so a false result always refers to a committed record.
+     */
+    public boolean insertIfAbsent(IdempotencyRecord record) {
+        return jdbcTemplate.update(
+                "INSERT INTO idempotency_key (key, wallet_id, operation_type, amount, balance) "
+                        + "VALUES (?, ?, ?, ?, ?) ON CONFLICT (key) DO NOTHING",
+                record.key(),
+                record.walletId(),
+                record.operationType().name(),
+                record.amount().minorUnits(),
+                record.balance().minorUnits()
+        ) == 1;
+    }
+
+    public int deleteCreatedBefore(Instant threshold, int limit) {
+        return jdbcTemplate.update(
+                "DELETE FROM idempotency_key WHERE key IN "
+                        + "(SELECT key FROM idempotency_key WHERE created_at < ? LIMIT ?)",
+                Timestamp.from(threshold),
+                limit
+        );
+    }
+}
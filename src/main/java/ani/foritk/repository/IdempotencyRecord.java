@@ -0,0 +1,14 @@
+package ani.foritk.repository;
+
+import ani.foritk.dto.OperationType;
+import ani.foritk.entity.Money;
+
+import java.util.UUID;
+
+public record IdempotencyRecord(
+        String key,
+        UUID walletId,
+        OperationType operationType,
+        Money amount,
+        Money balance
+) {}
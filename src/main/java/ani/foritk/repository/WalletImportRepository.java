@@ -0,0 +1,149 @@
+package ani.foritk.repository;
+
+import ani.foritk.entity.Money;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * Bulk-loads wallets with {@code COPY} into a temporary staging table and merges each chunk into
+ * {@code wallet} with one {@code INSERT ... SELECT}, skipping IDs that already exist.
+ */
+@Repository
+public class WalletImportRepository {
+    private static final String MERGE = """
+            INSERT INTO wallet (id, balance, version) SELECT id, balance, 0 FROM wallet_import
+            ON CONFLICT (id) DO NOTHING""";
+    private static final String MERGE_AND_RECORD = """
+            WITH inserted AS (
+                INSERT INTO wallet (id, balance, version) SELECT id, balance, 0 FROM wallet_import
+                ON CONFLICT (id) DO NOTHING
+                RETURNING id, balance
+            ), recorded AS (
+                INSERT INTO wallet_operation (wallet_id, operation_type, amount, balance)
+                SELECT id, 'DEPOSIT', balance, balance FROM inserted WHERE balance > 0
+            )
+            SELECT count(*) FROM inserted""";
+
+    private final DataSource dataSource;
+
+    public WalletImportRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Opens a session on a connection of its own. With {@code recordOperations} a positive initial
+     * balance is also written to the operation ledger as a deposit.
+     */
+    public ImportSession open(boolean recordOperations) throws SQLException {
+        final Connection connection = dataSource.getConnection();
+        try {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TEMPORARY TABLE IF NOT EXISTS wallet_import "
+                        + "(id uuid NOT NULL, balance bigint NOT NULL) ON COMMIT DELETE ROWS");
+            }
+            connection.commit();
+            return new ImportSession(connection, recordOperations ? MERGE_AND_RECORD : MERGE);
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Rows added to a session are streamed to the server as they come through a small buffer, and
+     * {@link #commit} merges and commits them, so memory use does not depend on the chunk size.
+     */
+    public static final class ImportSession implements AutoCloseable {
+        private static final int BUFFER_SIZE = 64 * 1024;
+        private static final int MAX_ROW_LENGTH = 64;
+
+        private final Connection connection;
+        private final String merge;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+        private CopyIn copyIn;
+
+        private ImportSession(Connection connection, String merge) {
+            this.connection = connection;
+            this.merge = merge;
+        }
+
+        public void add(UUID id, Money balance) throws SQLException {
+            if (copyIn == null) {
+                copyIn = connection.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn("COPY wallet_import (id, balance) FROM STDIN");
+            }
+            if (position + MAX_ROW_LENGTH > BUFFER_SIZE) {
+                flush();
+            }
+            position = writeAscii(id.toString(), position);
+            buffer[position++] = '\t';
+            position = writeAscii(Long.toString(balance.minorUnits()), position);
+            buffer[position++] = '\n';
+        }
+
+        /**
+         * Merges the rows added since the last commit and commits; returns the number of new wallets.
+         */
+        public long commit() throws SQLException {
+            if (copyIn == null) {
+                return 0;
+            }
+            flush();
+            copyIn.endCopy();
+            copyIn = null;
+            final long inserted;
+            try (Statement statement = connection.createStatement()) {
+                if (statement.execute(merge)) {
+                    try (ResultSet rs = statement.getResultSet()) {
+                        rs.next();
+                        inserted = rs.getLong(1);
+                    }
+                } else {
+                    inserted = statement.getUpdateCount();
+                }
+            }
+            connection.commit();
+            return inserted;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                if (copyIn != null && copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+                connection.rollback();
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("DROP TABLE IF EXISTS wallet_import");
+                }
+                connection.commit();
+            } finally {
+                connection.close();
+            }
+        }
+
+        private void flush() throws SQLException {
+            if (position > 0) {
+                copyIn.writeToCopy(buffer, 0, position);
+                position = 0;
+            }
+        }
+
+        private int writeAscii(String value, int offset) {
+            for (int i = 0; i < value.length(); i++) {
+                buffer[offset++] = (byte) value.charAt(i);
+            }
+            return offset;
+        }
+    }
+}
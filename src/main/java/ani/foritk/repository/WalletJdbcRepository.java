@@ -0,0 +1,132 @@
+package ani.foritk.repository;
+
+import ani.foritk.entity.Money;
+import ani.foritk.entity.Wallet;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+@Repository
+public class WalletJdbcRepository {
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public WalletJdbcRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    /**
+     * Streams every wallet as committed on the primary; the transaction is not read-only, which would send
+     * it to a replica, because journal recovery must not miss a checkpoint.
+     */
+    @Transactional
+    public void forEachWallet(Consumer<Wallet> consumer) {
+        jdbcTemplate.query("SELECT id, balance, version FROM wallet", rs -> {
+            consumer.accept(mapWallet(rs));
+        });
+    }
+
+    public long countWallets() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM wallet", Long.class);
+    }
+
+    public boolean exists(UUID id) {
+        return jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM wallet WHERE id = ?)", Boolean.class, id);
+    }
+
+    /**
+     * Streams the ID of every wallet committed on the primary; a wallet missing on a lagging replica would
+     * be rejected by the existence filter built from it.
+     */
+    @Transactional
+    public void forEachWalletId(Consumer<UUID> consumer) {
+        jdbcTemplate.query("SELECT id FROM wallet", rs -> {
+            consumer.accept(rs.getObject(1, UUID.class));
+        });
+    }
+
+    /**
+     * Passes the ID and balance of each existing wallet among {@code ids} to {@code consumer}, in no
+     * particular order, without materializing entities. The balance of a sharded wallet includes its shards.
+     */
+    public void forEachBalance(Collection<UUID> ids, BiConsumer<UUID, Money> consumer) {
+        jdbcTemplate.query(
+                con -> {
+                    final PreparedStatement ps = con.prepareStatement("""
+                            SELECT w.id, w.balance + coalesce((SELECT sum(s.balance) FROM wallet_shard s WHERE s.wallet_id = w.id), 0)
+                            FROM wallet w WHERE w.id = ANY(?)""");
+                    ps.setArray(1, con.createArrayOf("uuid", ids.toArray()));
+                    return ps;
+                },
+                rs -> {
+                    consumer.accept(rs.getObject(1, UUID.class), Money.ofMinorUnits(rs.getLong(2)));
+                }
+        );
+    }
+
+    @Transactional
+    public void checkpoint(Collection<Wallet> wallets, int batchSize) {
+        jdbcTemplate.batchUpdate(
+                "UPDATE wallet SET balance = ?, version = ? WHERE id = ? AND version < ?",
+                wallets,
+                batchSize,
+                (ps, wallet) -> {
+                    ps.setLong(1, wallet.getBalance().minorUnits());
+                    ps.setLong(2, wallet.getVersion());
+                    ps.setObject(3, wallet.getId());
+                    ps.setLong(4, wallet.getVersion());
+                }
+        );
+    }
+
+    public Map<UUID, Wallet> lockAll(Collection<UUID> ids) {
+        final Map<UUID, Wallet> wallets = new LinkedHashMap<>();
+        jdbcTemplate.query(
+                con -> {
+                    final PreparedStatement ps = con.prepareStatement(
+                            "SELECT id, balance, version FROM wallet WHERE id = ANY(?) ORDER BY id FOR UPDATE");
+                    ps.setArray(1, con.createArrayOf("uuid", ids.toArray()));
+                    return ps;
+                },
+                rs -> {
+                    final Wallet wallet = mapWallet(rs);
+                    wallets.put(wallet.getId(), wallet);
+                }
+        );
+        return wallets;
+    }
+
+    public void updateBalances(Collection<Wallet> wallets, int batchSize) {
+        jdbcTemplate.batchUpdate(
+                "UPDATE wallet SET balance = ?, version = ? WHERE id = ?",
+                wallets,
+                batchSize,
+                (ps, wallet) -> {
+                    ps.setLong(1, wallet.getBalance().minorUnits());
+                    ps.setLong(2, wallet.getVersion());
+                    ps.setObject(3, wallet.getId());
+                }
+        );
+    }
+
+    private static Wallet mapWallet(ResultSet rs) throws SQLException {
+        final Wallet wallet = new Wallet();
+        wallet.setId(rs.getObject("id", UUID.class));
+        wallet.setBalance(Money.ofMinorUnits(rs.getLong("balance")));
+        wallet.setVersion(rs.getLong("version"));
+        return wallet;
+    }
+}
@@ -0,0 +1,33 @@
+package ani.foritk.repository;
+
+import ani.foritk.dto.OperationType;
+import ani.foritk.entity.Money;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.UUID;
+
+/**
+ * An applied operation and the balance after it, or a null balance for a sharded wallet, whose shard
+ * updates run concurrently so that none of them knows the total resulting from it alone.
+ */
+public record WalletOperationRecord(
+        UUID walletId,
+        OperationType operationType,
+        Money amount,
+        Money balance
+) {
+    void setBalance(PreparedStatement ps, int index) throws SQLException {
+        if (balance == null) {
+            ps.setNull(index, Types.BIGINT);
+        } else {
+            ps.setLong(index, balance.minorUnits());
+        }
+    }
+
+    static Money balance(ResultSet rs) throws SQLException {
+        final long balance = rs.getLong("balance");
+        return rs.wasNull() ? null : Money.ofMinorUnits(balance);
+    }
+}
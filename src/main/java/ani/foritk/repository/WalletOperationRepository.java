@@ -0,0 +1,134 @@
+package ani.foritk.repository;
+
+import ani.foritk.dto.OperationType;
+import ani.foritk.dto.WalletOperationDto;
+import ani.foritk.entity.Money;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+@Repository
+public class WalletOperationRepository {
+    private static final int FETCH_SIZE = 1000;
+    private static final long SETTLE_POLL_MILLIS = 5;
+    private static final String SETTLED = "SELECT pg_snapshot_xmin(pg_current_snapshot()) > ?::xid8";
+    private static final String INSERT = "INSERT INTO wallet_operation "
+            + "(wallet_id, operation_type, amount, balance) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public WalletOperationRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    public void insert(WalletOperationRecord record) {
+        jdbcTemplate.update(INSERT, ps -> setValues(ps, record));
+    }
+
+    public void insertAll(List<WalletOperationRecord> records) {
+        jdbcTemplate.batchUpdate(INSERT, records, records.size(), WalletOperationRepository::setValues);
+    }
+
+
+    /**
+     * Returns the last operation ID of the wallet committed so far, and the ID of a transaction started
+     * afterwards. Operation IDs are allocated before commit, so a lower ID may still be committed by a
+     * transaction that was running at that point; every such transaction has a lower transaction ID,
+     * because each writer changes a wallet row before it records an operation. Runs on the primary in a
+     * transaction of its own.
+     */
+    public Horizon horizon(UUID walletId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT coalesce(max(id), 0), pg_current_xact_id()::text FROM wallet_operation WHERE wallet_id = ?",
+                (rs, rowNum) -> new Horizon(rs.getLong(1), rs.getString(2)),
+                walletId
+        );
+    }
+
+    /**
+     * Streams up to {@code limit} operations of the wallet with an ID above {@code afterId} and up to the
+     * horizon in ID order, once every transaction older than the horizon has finished, so that no later
+     * read can find an ID below the last one streamed. Rows are fetched through a cursor {@value FETCH_SIZE}
+     * at a time, so the page is never held in memory. Returns {@code false} without reading if those
+     * transactions did not finish within {@code settleTimeout}.
+     */
+    @Transactional(readOnly = true)
+    public boolean forEachOperation(UUID walletId, long afterId, Horizon horizon, int limit, Duration settleTimeout,
+                                    Consumer<WalletOperationDto> consumer) {
+        if (horizon.lastId() <= afterId) {
+            return true;
+        }
+        if (!awaitSettled(horizon.transactionId(), settleTimeout)) {
+            return false;
+        }
+        jdbcTemplate.query(
+                "SELECT id, wallet_id, operation_type, amount, balance, created_at FROM wallet_operation "
+                        + "WHERE wallet_id = ? AND id > ? AND id <= ? ORDER BY id LIMIT ?",
+                rs -> {
+                    consumer.accept(new WalletOperationDto(
+                            rs.getLong("id"),
+                            rs.getObject("wallet_id", UUID.class),
+                            OperationType.valueOf(rs.getString("operation_type")),
+                            Money.ofMinorUnits(rs.getLong("amount")),
+                            WalletOperationRecord.balance(rs),
+                            rs.getTimestamp("created_at").toInstant()
+                    ));
+                },
+                walletId,
+                afterId,
+                horizon.lastId(),
+                limit
+        );
+        return true;
+    }
+
+    public void createPartition(YearMonth month) {
+        final YearMonth next = month.plusMonths(1);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS wallet_operation_%d_%02d PARTITION OF wallet_operation "
+                .formatted(month.getYear(), month.getMonthValue())
+                + "FOR VALUES FROM ('%s') TO ('%s')".formatted(
+                month.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC),
+                next.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC)));
+    }
+
+    /**
+     * Waits until the oldest running transaction is newer than {@code transactionId}. Each check is a
+     * statement of its own, so in the read committed transaction the next one sees what they committed; on
+     * a replica the check also waits until it has replayed them.
+     */
+    private boolean awaitSettled(String transactionId, Duration timeout) {
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        while (!jdbcTemplate.queryForObject(SETTLED, Boolean.class, transactionId)) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            try {
+                Thread.sleep(SETTLE_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void setValues(PreparedStatement ps, WalletOperationRecord record) throws SQLException {
+        ps.setObject(1, record.walletId());
+        ps.setString(2, record.operationType().name());
+        ps.setLong(3, record.amount().minorUnits());
+        record.setBalance(ps, 4);
+    }
+
+    public record Horizon(long lastId, String transactionId) {}
+}
@@ -1,11 +1,11 @@
 package ani.foritk.repository;
 
 import ani.foritk.entity.Wallet;
-import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 import java.util.UUID;
@@ -13,8 +13,52 @@ import java.util.UUID;
 @Repository
 public interface WalletRepository extends JpaRepository<Wallet, UUID> {
 
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
-    @Query("SELECT w FROM Wallet w WHERE w.id = :id")
+    /**
+     * Returns the wallet with the balances of its shards, if any are left, added to its own.
+     */
+    @Transactional(readOnly = true)
+    @Query(value = """
+            SELECT w.id, w.balance + coalesce((SELECT sum(s.balance) FROM wallet_shard s WHERE s.wallet_id = w.id), 0)
+                   AS balance, w.version
+            FROM wallet w WHERE w.id = :id""", nativeQuery = true)
+    Optional<Wallet> findTotalById(UUID id);
+
+    /**
+     * Locks the wallet row and folds any shards left from a wallet that is no longer sharded into it, so
+     * that the locked balance is the wallet's whole balance. The version changes only if shards are folded.
+     */
+    @Query(value = """
+            WITH locked AS (
+                SELECT id, balance, version FROM wallet WHERE id = :id FOR UPDATE
+            ), folded AS (
+                DELETE FROM wallet_shard WHERE wallet_id IN (SELECT id FROM locked) RETURNING balance
+            ), total AS (
+                SELECT sum(balance) AS balance FROM folded
+            ), updated AS (
+                UPDATE wallet w SET balance = w.balance + t.balance, version = w.version + 1
+                FROM total t WHERE w.id = :id AND t.balance IS NOT NULL
+            )
+            SELECT l.id, l.balance + coalesce(t.balance, 0) AS balance,
+                   l.version + CASE WHEN t.balance IS NULL THEN 0 ELSE 1 END AS version
+            FROM locked l, total t""", nativeQuery = true)
     Optional<Wallet> findByIdAndLock(UUID id);
 
+    @Query(value = """
+            UPDATE wallet SET balance = balance + :amount, version = version + 1
+            WHERE id = :id
+            RETURNING id, balance, version""", nativeQuery = true)
+    Optional<Wallet> depositAtomically(UUID id, long amount);
+
+    @Query(value = """
+            UPDATE wallet SET balance = balance - :amount, version = version + 1
+            WHERE id = :id AND balance >= :amount
+            RETURNING id, balance, version""", nativeQuery = true)
+    Optional<Wallet> withdrawAtomically(UUID id, long amount);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO wallet (id, balance, version) VALUES (:id, :balance, 0)
+            ON CONFLICT (id) DO NOTHING""", nativeQuery = true)
+    int insertIfAbsent(UUID id, long balance);
+
 }
\ No newline at end of file
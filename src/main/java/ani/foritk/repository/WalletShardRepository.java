@@ -0,0 +1,128 @@
+package ani.foritk.repository;
+
+import ani.foritk.entity.Money;
+import ani.foritk.entity.Wallet;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Sub-balances of sharded wallets in {@code wallet_shard}. Deposits and withdrawals of a single shard
+ * lock only that row; the wallet row is locked only to move funds between shards.
+ */
+@Repository
+public class WalletShardRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public WalletShardRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Adds the missing shards {@code 0..shards-1} of the wallet; returns false if the wallet does not exist.
+     */
+    public boolean createShards(UUID walletId, int shards) {
+        jdbcTemplate.update("""
+                INSERT INTO wallet_shard (wallet_id, shard, balance)
+                SELECT w.id, s, 0 FROM wallet w, generate_series(0, ? - 1) s WHERE w.id = ?
+                ON CONFLICT DO NOTHING""", shards, walletId);
+        return jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM wallet WHERE id = ?)", Boolean.class, walletId);
+    }
+
+    /**
+     * Moves the balance of every shard whose wallet is not in {@code sharded} into the wallet row and
+     * deletes the shard, locking the wallet rows first in id order like a rebalance does. Returns the
+     * number of wallets folded.
+     */
+    public int foldAllExcept(Collection<UUID> sharded) {
+        return jdbcTemplate.update(con -> {
+            final PreparedStatement ps = con.prepareStatement("""
+                    WITH locked AS (
+                        SELECT id FROM wallet
+                        WHERE id IN (SELECT wallet_id FROM wallet_shard WHERE wallet_id <> ALL(?))
+                        ORDER BY id FOR UPDATE
+                    ), folded AS (
+                        DELETE FROM wallet_shard s USING locked l WHERE s.wallet_id = l.id
+                        RETURNING s.wallet_id, s.balance
+                    )
+                    UPDATE wallet w SET balance = w.balance + f.total, version = w.version + 1
+                    FROM (SELECT wallet_id, sum(balance) AS total FROM folded GROUP BY wallet_id) f
+                    WHERE w.id = f.wallet_id""");
+            ps.setArray(1, con.createArrayOf("uuid", sharded.toArray()));
+            return ps;
+        });
+    }
+
+    public boolean deposit(UUID walletId, int shard, long amount) {
+        return jdbcTemplate.update(
+                "UPDATE wallet_shard SET balance = balance + ? WHERE wallet_id = ? AND shard = ?",
+                amount, walletId, shard) == 1;
+    }
+
+    public boolean withdraw(UUID walletId, int shard, long amount) {
+        return jdbcTemplate.update(
+                "UPDATE wallet_shard SET balance = balance - ? WHERE wallet_id = ? AND shard = ? AND balance >= ?",
+                amount, walletId, shard, amount) == 1;
+    }
+
+    /**
+     * Returns the wallet with the sum of its own and its shards' balances as seen by the current statement.
+     */
+    public Optional<Wallet> findTotal(UUID walletId) {
+        return jdbcTemplate.query("""
+                SELECT w.id, w.balance + coalesce((SELECT sum(s.balance) FROM wallet_shard s WHERE s.wallet_id = w.id), 0),
+                       w.version
+                FROM wallet w WHERE w.id = ?""",
+                (rs, rowNum) -> {
+                    final Wallet wallet = new Wallet();
+                    wallet.setId(rs.getObject(1, UUID.class));
+                    wallet.setBalance(Money.ofMinorUnits(rs.getLong(2)));
+                    wallet.setVersion(rs.getLong(3));
+                    return wallet;
+                },
+                walletId).stream().findFirst();
+    }
+
+    /**
+     * Locks the wallet row and then all its shards in shard order and returns the wallet's own balance
+     * followed by the shard balances, or an empty list if the wallet does not exist.
+     */
+    public List<Long> lockAll(UUID walletId) {
+        final List<Long> own = jdbcTemplate.queryForList(
+                "SELECT balance FROM wallet WHERE id = ? FOR UPDATE", Long.class, walletId);
+        if (own.isEmpty()) {
+            return own;
+        }
+        final List<Long> balances = new ArrayList<>(own);
+        balances.addAll(jdbcTemplate.queryForList(
+                "SELECT balance FROM wallet_shard WHERE wallet_id = ? ORDER BY shard FOR UPDATE", Long.class, walletId));
+        return balances;
+    }
+
+    /**
+     * Sets the wallet's own balance and the balance of every shard; shards beyond {@code shardBalances}
+     * are emptied. The rows must be locked by {@link #lockAll}.
+     */
+    public void redistribute(UUID walletId, long ownBalance, long[] shardBalances) {
+        jdbcTemplate.update("UPDATE wallet SET balance = ?, version = version + 1 WHERE id = ?", ownBalance, walletId);
+        jdbcTemplate.update("UPDATE wallet_shard SET balance = 0 WHERE wallet_id = ? AND shard >= ?",
+                walletId, shardBalances.length);
+        jdbcTemplate.batchUpdate("UPDATE wallet_shard SET balance = ? WHERE wallet_id = ? AND shard = ?",
+                IntStream.range(0, shardBalances.length).boxed().toList(),
+                shardBalances.length,
+                (ps, shard) -> {
+                    ps.setLong(1, shardBalances[shard]);
+                    ps.setObject(2, walletId);
+                    ps.setInt(3, shard);
+                });
+    }
+}
@@ -0,0 +1,54 @@
+package ani.foritk.service;
+
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Money;
+import ani.foritk.entity.Wallet;
+import ani.foritk.exception.InsufficientFundsException;
+import ani.foritk.exception.WalletNotFoundException;
+import ani.foritk.repository.WalletRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+@Component
+@ConditionalOnProperty(prefix = "wallet.update", name = "strategy", havingValue = "atomic")
+public class AtomicSqlBalanceUpdateStrategy implements BalanceUpdateStrategy {
+    private final WalletRepository walletRepository;
+    private final TransactionOperations transactionOperations;
+
+    public AtomicSqlBalanceUpdateStrategy(WalletRepository walletRepository,
+                                          TransactionOperations transactionOperations) {
+        this.walletRepository = walletRepository;
+        this.transactionOperations = transactionOperations;
+    }
+
+    @Override
+    public Wallet updateBalance(UpdateWalletDto updateWalletDto, Consumer<Wallet> inTransaction) {
+        return transactionOperations.execute(status -> {
+            final Wallet wallet = applyUpdate(updateWalletDto);
+            inTransaction.accept(wallet);
+            return wallet;
+        });
+    }
+
+    private Wallet applyUpdate(UpdateWalletDto updateWalletDto) {
+        final UUID id = updateWalletDto.valletId();
+        final Money amount = updateWalletDto.amount();
+        final Optional<Wallet> updated = switch (updateWalletDto.operationType()) {
+            case DEPOSIT -> walletRepository.depositAtomically(id, amount.minorUnits());
+            case WITHDRAW -> walletRepository.withdrawAtomically(id, amount.minorUnits());
+        };
+        if (updated.isPresent()) {
+            return updated.get();
+        }
+
+        if (!walletRepository.existsById(id)) {
+            throw new WalletNotFoundException(id);
+        }
+        throw new InsufficientFundsException(id, amount);
+    }
+}
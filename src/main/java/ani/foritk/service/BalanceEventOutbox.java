@@ -0,0 +1,56 @@
+package ani.foritk.service;
+
+import ani.foritk.config.OutboxProperties;
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Wallet;
+import ani.foritk.repository.BalanceEventOutboxRepository;
+import ani.foritk.repository.WalletOperationRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Writes a balance-changed event to the {@code balance_event_outbox} table in the transaction that changes
+ * the balance, so an event exists exactly for every committed change. The events of a wallet always go to
+ * the same partition; {@link BalanceEventRelay} delivers them.
+ */
+@Component
+@ConditionalOnProperty(prefix = "wallet.outbox", name = "enabled", havingValue = "true")
+public class BalanceEventOutbox {
+    private final BalanceEventOutboxRepository balanceEventOutboxRepository;
+    private final int partitions;
+
+    public BalanceEventOutbox(BalanceEventOutboxRepository balanceEventOutboxRepository,
+                              OutboxProperties outboxProperties) {
+        this.balanceEventOutboxRepository = balanceEventOutboxRepository;
+        this.partitions = outboxProperties.partitions();
+    }
+
+    /**
+     * Returns the callback that writes the event of the update inside its transaction.
+     */
+    public Consumer<Wallet> recorder(UpdateWalletDto updateWalletDto) {
+        return wallet -> balanceEventOutboxRepository.insert(partitionOf(wallet.getId()), new WalletOperationRecord(
+                wallet.getId(),
+                updateWalletDto.operationType(),
+                updateWalletDto.amount(),
+                wallet.getBalance()
+        ));
+    }
+
+    /**
+     * Writes the events of several operations of the current transaction with one batched insert.
+     */
+    public void recordAll(List<WalletOperationRecord> records) {
+        if (!records.isEmpty()) {
+            balanceEventOutboxRepository.insertAll(records, this::partitionOf);
+        }
+    }
+
+    int partitionOf(UUID walletId) {
+        return Math.floorMod(walletId.hashCode(), partitions);
+    }
+}
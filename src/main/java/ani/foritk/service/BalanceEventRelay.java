@@ -0,0 +1,134 @@
+package ani.foritk.service;
+
+import ani.foritk.config.OutboxProperties;
+import ani.foritk.dto.BalanceChangedEventDto;
+import ani.foritk.repository.BalanceEventOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers the events of the outbox to the {@link BalanceEventSink} with {@code wallet.outbox.workers}
+ * threads. A worker claims a partition with {@code FOR UPDATE SKIP LOCKED}, so workers of all instances
+ * share the partitions without waiting for each other, and in the same transaction publishes the oldest
+ * events of the partition and deletes them. A wallet's events are published by one worker at a time in
+ * the order they were written; if publishing or the commit fails they are published again.
+ */
+@Slf4j
+@Component
+@DependsOnDatabaseInitialization
+@ConditionalOnProperty(prefix = "wallet.outbox", name = "enabled", havingValue = "true")
+public class BalanceEventRelay {
+    private final BalanceEventOutboxRepository balanceEventOutboxRepository;
+    private final BalanceEventSink balanceEventSink;
+    private final TransactionOperations transactionOperations;
+    private final OutboxProperties outboxProperties;
+    private final Counter relayed;
+    private final Counter failures;
+    private final ExecutorService workers;
+    private volatile boolean partitionsCreated;
+
+    public BalanceEventRelay(BalanceEventOutboxRepository balanceEventOutboxRepository,
+                             BalanceEventSink balanceEventSink,
+                             TransactionOperations transactionOperations,
+                             OutboxProperties outboxProperties,
+                             MeterRegistry meterRegistry) {
+        this.balanceEventOutboxRepository = balanceEventOutboxRepository;
+        this.balanceEventSink = balanceEventSink;
+        this.transactionOperations = transactionOperations;
+        this.outboxProperties = outboxProperties;
+        this.relayed = Counter.builder("wallet.outbox.relayed")
+                .description("Balance events published and deleted from the outbox")
+                .register(meterRegistry);
+        this.failures = Counter.builder("wallet.outbox.failures")
+                .description("Relay batches that failed and are retried")
+                .register(meterRegistry);
+        final AtomicInteger threads = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, outboxProperties.workers()),
+                runnable -> new Thread(runnable, "wallet-outbox-relay-" + threads.incrementAndGet()));
+    }
+
+    @PostConstruct
+    public void start() {
+        for (int i = 0; i < outboxProperties.workers(); i++) {
+            workers.execute(this::work);
+        }
+        log.info("Balance event relay started with {} workers over {} partitions",
+                outboxProperties.workers(), outboxProperties.partitions());
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Publishes the oldest events of one unclaimed partition that has any, and returns how many.
+     */
+    int relayBatch() {
+        if (!partitionsCreated) {
+            balanceEventOutboxRepository.createPartitions(outboxProperties.partitions());
+            partitionsCreated = true;
+        }
+        final int count = transactionOperations.execute(status -> {
+            final Optional<Integer> partition = balanceEventOutboxRepository.claimPartition();
+            if (partition.isEmpty()) {
+                return 0;
+            }
+            final List<BalanceChangedEventDto> events =
+                    balanceEventOutboxRepository.findOldest(partition.get(), outboxProperties.batchSize());
+            try {
+                balanceEventSink.publish(events);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while publishing balance events", e);
+            }
+            balanceEventOutboxRepository.markRelayed(partition.get(), events);
+            return events.size();
+        });
+        relayed.increment(count);
+        return count;
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Duration pause;
+            try {
+                // a partial batch drained its partition; waiting lets the next batches fill up
+                pause = relayBatch() < outboxProperties.batchSize() ? outboxProperties.pollInterval() : Duration.ZERO;
+            } catch (RuntimeException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                failures.increment();
+                log.warn("Failed to relay balance events, retrying in {}: {}",
+                        outboxProperties.retryInterval(), e.toString());
+                pause = outboxProperties.retryInterval();
+            }
+            if (!pause.isZero()) {
+                try {
+                    Thread.sleep(pause.toMillis());
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
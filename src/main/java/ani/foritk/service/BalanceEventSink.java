@@ -0,0 +1,17 @@
+package ani.foritk.service;
+
+import ani.foritk.dto.BalanceChangedEventDto;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination of the events relayed from the outbox. {@link #publish} returns once the receiver has
+ * stored the events; if it throws, they stay in the outbox and are published again, so a receiver sees
+ * every event at least once and skips event IDs it has already processed. The events of a wallet arrive
+ * in the order of its changes.
+ */
+public interface BalanceEventSink {
+
+    void publish(List<BalanceChangedEventDto> events) throws IOException, InterruptedException;
+}
@@ -0,0 +1,25 @@
+package ani.foritk.service;
+
+import ani.foritk.dto.OperationType;
+import ani.foritk.entity.Money;
+import ani.foritk.exception.InsufficientFundsException;
+
+import java.util.UUID;
+
+final class BalanceOperations {
+
+    private BalanceOperations() {
+    }
+
+    static Money apply(UUID id, Money currentBalance, OperationType operationType, Money amount) {
+        return switch (operationType) {
+            case DEPOSIT -> currentBalance.plus(amount);
+            case WITHDRAW -> {
+                if (currentBalance.isLessThan(amount)) {
+                    throw new InsufficientFundsException(id, amount);
+                }
+                yield currentBalance.minus(amount);
+            }
+        };
+    }
+}
@@ -0,0 +1,19 @@
+package ani.foritk.service;
+
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Wallet;
+
+import java.util.function.Consumer;
+
+public interface BalanceUpdateStrategy {
+
+    default Wallet updateBalance(UpdateWalletDto updateWalletDto) {
+        return updateBalance(updateWalletDto, wallet -> {});
+    }
+
+    /**
+     * Applies the update and passes the updated wallet to {@code inTransaction} before the transaction
+     * commits; an exception thrown by it rolls the balance change back.
+     */
+    Wallet updateBalance(UpdateWalletDto updateWalletDto, Consumer<Wallet> inTransaction);
+}
@@ -0,0 +1,64 @@
+package ani.foritk.service;
+
+import ani.foritk.config.OutboxProperties;
+import ani.foritk.dto.BalanceChangedEventDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends the events as newline-delimited JSON to {@code wallet.outbox.file} and forces them to disk
+ * before the relay deletes them from the outbox.
+ */
+@Component
+@ConditionalOnProperty(prefix = "wallet.outbox", name = "enabled", havingValue = "true")
+@ConditionalOnProperty(prefix = "wallet.outbox", name = "sink", havingValue = "file", matchIfMissing = true)
+public class FileBalanceEventSink implements BalanceEventSink {
+    private final Path file;
+    private final ObjectMapper objectMapper;
+    private FileChannel channel;
+
+    public FileBalanceEventSink(OutboxProperties outboxProperties, ObjectMapper objectMapper) {
+        this.file = outboxProperties.file();
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void publish(List<BalanceChangedEventDto> events) throws IOException {
+        final ByteArrayOutputStream lines = new ByteArrayOutputStream(events.size() * 160);
+        for (BalanceChangedEventDto event : events) {
+            objectMapper.writeValue(lines, event);
+            lines.write('\n');
+        }
+        if (channel == null || !channel.isOpen()) {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
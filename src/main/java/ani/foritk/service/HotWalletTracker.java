@@ -0,0 +1,178 @@
+package ani.foritk.service;
+
+import ani.foritk.config.WalletMetricsProperties;
+import ani.foritk.dto.HotWalletDto;
+import ani.foritk.dto.HotWalletsDto;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Counts balance updates per wallet with the Space-Saving sketch: it keeps {@code capacity} counters,
+ * and a wallet that is not tracked takes over the smallest one, inheriting its count as the possible
+ * overestimate. Any wallet that received more than {@code observed / capacity} updates is guaranteed to
+ * be tracked. The counters form a min-heap indexed by wallet ID, so an update costs O(log capacity).
+ * <p>
+ * Each request thread records into one of several striped sketches under that stripe's own lock, so
+ * updates of different threads rarely meet on a monitor. A read merges the stripes: a wallet missing
+ * from a full stripe is charged that stripe's smallest count, both as updates and as overestimate, which
+ * keeps the bounds above.
+ */
+@Component
+@ConditionalOnProperty(prefix = "wallet.metrics", name = "enabled", havingValue = "true")
+public class HotWalletTracker {
+    private final int capacity;
+    private final Sketch[] sketches;
+
+    public HotWalletTracker(WalletMetricsProperties walletMetricsProperties) {
+        this.capacity = walletMetricsProperties.hotWalletCapacity();
+        final int processors = Runtime.getRuntime().availableProcessors();
+        this.sketches = new Sketch[1 << (32 - Integer.numberOfLeadingZeros(processors - 1))];
+        for (int i = 0; i < sketches.length; i++) {
+            sketches[i] = new Sketch(capacity);
+        }
+    }
+
+    public void record(UUID walletId) {
+        final Sketch sketch = sketches[(int) Thread.currentThread().getId() & (sketches.length - 1)];
+        sketch.lock.lock();
+        try {
+            sketch.record(walletId);
+        } finally {
+            sketch.lock.unlock();
+        }
+    }
+
+    public HotWalletsDto top(int limit) {
+        final Map<UUID, HotWalletDto> merged = new HashMap<>();
+        long observed = 0;
+        long floors = 0;
+        for (Sketch sketch : sketches) {
+            sketch.lock.lock();
+            try {
+                final long floor = sketch.floor();
+                merged.replaceAll((id, wallet) -> sketch.positions.containsKey(id)
+                        ? wallet
+                        : new HotWalletDto(id, wallet.updates() + floor, wallet.maxOverestimate() + floor));
+                for (int i = 0; i < sketch.size; i++) {
+                    final HotWalletDto previous = merged.get(sketch.wallets[i]);
+                    merged.put(sketch.wallets[i], previous != null
+                            ? new HotWalletDto(sketch.wallets[i], previous.updates() + sketch.counts[i],
+                                    previous.maxOverestimate() + sketch.errors[i])
+                            : new HotWalletDto(sketch.wallets[i], floors + sketch.counts[i],
+                                    floors + sketch.errors[i]));
+                }
+                observed += sketch.observed;
+                floors += floor;
+            } finally {
+                sketch.lock.unlock();
+            }
+        }
+        final List<HotWalletDto> top = new ArrayList<>(merged.values());
+        top.sort(Comparator.comparingLong(HotWalletDto::updates).reversed());
+        final int count = Math.max(0, Math.min(Math.min(limit, capacity), top.size()));
+        return new HotWalletsDto(observed, capacity, List.copyOf(top.subList(0, count)));
+    }
+
+    public void reset() {
+        for (Sketch sketch : sketches) {
+            sketch.lock.lock();
+            try {
+                sketch.positions.clear();
+                sketch.size = 0;
+                sketch.observed = 0;
+            } finally {
+                sketch.lock.unlock();
+            }
+        }
+    }
+
+    private static final class Sketch {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int capacity;
+        private final UUID[] wallets;
+        private final long[] counts;
+        private final long[] errors;
+        private final Map<UUID, Integer> positions;
+        private int size;
+        private long observed;
+
+        private Sketch(int capacity) {
+            this.capacity = capacity;
+            this.wallets = new UUID[capacity];
+            this.counts = new long[capacity];
+            this.errors = new long[capacity];
+            this.positions = new HashMap<>(capacity * 2);
+        }
+
+        private void record(UUID walletId) {
+            observed++;
+            final Integer position = positions.get(walletId);
+            if (position != null) {
+                counts[position]++;
+                siftDown(position);
+            } else if (size < capacity) {
+                place(size, walletId, 1, 0);
+                siftUp(size++);
+            } else {
+                positions.remove(wallets[0]);
+                place(0, walletId, counts[0] + 1, counts[0]);
+                siftDown(0);
+            }
+        }
+
+        /** The most updates an untracked wallet may have received in this stripe. */
+        private long floor() {
+            return size < capacity ? 0 : counts[0];
+        }
+
+        private void place(int position, UUID walletId, long count, long error) {
+            wallets[position] = walletId;
+            counts[position] = count;
+            errors[position] = error;
+            positions.put(walletId, position);
+        }
+
+        private void siftUp(int position) {
+            while (position > 0) {
+                final int parent = (position - 1) >>> 1;
+                if (counts[parent] <= counts[position]) {
+                    return;
+                }
+                swap(position, parent);
+                position = parent;
+            }
+        }
+
+        private void siftDown(int position) {
+            while (true) {
+                final int left = 2 * position + 1;
+                if (left >= size) {
+                    return;
+                }
+                final int right = left + 1;
+                final int smallest = right < size && counts[right] < counts[left] ? right : left;
+                if (counts[position] <= counts[smallest]) {
+                    return;
+                }
+                swap(position, smallest);
+                position = smallest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            final UUID wallet = wallets[i];
+            final long count = counts[i];
+            final long error = errors[i];
+            place(i, wallets[j], counts[j], errors[j]);
+            place(j, wallet, count, error);
+        }
+    }
+}
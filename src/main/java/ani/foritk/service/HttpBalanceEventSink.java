@@ -0,0 +1,63 @@
+package ani.foritk.service;
+
+import ani.foritk.config.OutboxProperties;
+import ani.foritk.dto.BalanceChangedEventDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Posts each batch as one newline-delimited JSON request to {@code wallet.outbox.url}; any status other
+ * than 2xx fails the batch.
+ */
+@Component
+@ConditionalOnProperty(prefix = "wallet.outbox", name = "enabled", havingValue = "true")
+@ConditionalOnProperty(prefix = "wallet.outbox", name = "sink", havingValue = "http")
+public class HttpBalanceEventSink implements BalanceEventSink {
+    private final URI url;
+    private final Duration timeout;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+
+    public HttpBalanceEventSink(OutboxProperties outboxProperties, ObjectMapper objectMapper) {
+        if (outboxProperties.url() == null) {
+            throw new IllegalStateException("wallet.outbox.url is required for the http sink");
+        }
+        this.url = outboxProperties.url();
+        this.timeout = outboxProperties.timeout();
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    @Override
+    public void publish(List<BalanceChangedEventDto> events) throws IOException, InterruptedException {
+        final ByteArrayOutputStream lines = new ByteArrayOutputStream(events.size() * 160);
+        for (BalanceChangedEventDto event : events) {
+            objectMapper.writeValue(lines, event);
+            lines.write('\n');
+        }
+        final HttpRequest request = HttpRequest.newBuilder(url)
+                .timeout(timeout)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_NDJSON_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(lines.toByteArray()))
+                .build();
+        final HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException(url + " responded to " + events.size() + " events with status "
+                    + response.statusCode());
+        }
+    }
+}
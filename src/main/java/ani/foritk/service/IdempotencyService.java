@@ -0,0 +1,144 @@
+package ani.foritk.service;
+
+import ani.foritk.config.IdempotencyProperties;
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Wallet;
+import ani.foritk.exception.IdempotencyKeyReusedException;
+import ani.foritk.exception.InvalidIdempotencyKeyException;
+import ani.foritk.repository.IdempotencyKeyRepository;
+import ani.foritk.repository.IdempotencyRecord;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Deduplicates balance updates by client-supplied key. The response of an update is stored in the
+ * idempotency table by the transaction that changes the balance and, after commit, in an in-memory
+ * window, so a retry inside the window is answered without a database round trip and a later one with a
+ * primary key lookup. Stored responses are purged once they are older than the retention period.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "wallet.idempotency", name = "enabled", havingValue = "true")
+public class IdempotencyService {
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final IdempotencyProperties idempotencyProperties;
+    private final IdempotencyWindow window;
+    private final ScheduledExecutorService purgeExecutor = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "wallet-idempotency-purge"));
+
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository,
+                              IdempotencyProperties idempotencyProperties) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.idempotencyProperties = idempotencyProperties;
+        this.window = new IdempotencyWindow(
+                idempotencyProperties.memoryWindow(),
+                idempotencyProperties.memoryBuckets(),
+                idempotencyProperties.bucketCapacity(),
+                System::nanoTime
+        );
+    }
+
+    @PostConstruct
+    public void start() {
+        final long interval = idempotencyProperties.memoryWindow().toMillis() / idempotencyProperties.memoryBuckets();
+        purgeExecutor.scheduleWithFixedDelay(this::purgeQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        purgeExecutor.shutdownNow();
+    }
+
+    public Optional<Wallet> replay(String key, UpdateWalletDto updateWalletDto) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException(
+                    "Idempotency key must be between 1 and " + MAX_KEY_LENGTH + " characters long");
+        }
+        final long keyHash = IdempotencyWindow.hash(key);
+        final int fingerprint = fingerprint(updateWalletDto);
+        final Wallet remembered = window.find(keyHash, updateWalletDto.valletId(), fingerprint);
+        if (remembered != null) {
+            return Optional.of(remembered);
+        }
+
+        final Optional<IdempotencyRecord> stored = idempotencyKeyRepository.find(key);
+        if (stored.isEmpty()) {
+            return Optional.empty();
+        }
+        final IdempotencyRecord record = stored.get();
+        if (!record.walletId().equals(updateWalletDto.valletId())
+                || record.operationType() != updateWalletDto.operationType()
+                || !record.amount().equals(updateWalletDto.amount())) {
+            throw new IdempotencyKeyReusedException(
+                    "Idempotency key " + key + " was already used for a different request");
+        }
+        window.put(keyHash, record.walletId(), fingerprint, record.balance());
+        final Wallet wallet = new Wallet();
+        wallet.setId(record.walletId());
+        wallet.setBalance(record.balance());
+        return Optional.of(wallet);
+    }
+
+    /**
+     * Returns the callback that records the response inside the update transaction. It throws
+     * {@link DuplicateKeyException} when a concurrent request with the same key has committed first.
+     */
+    public Consumer<Wallet> recorder(String key, UpdateWalletDto updateWalletDto) {
+        return wallet -> {
+            final boolean inserted = idempotencyKeyRepository.insertIfAbsent(new IdempotencyRecord(
+                    key,
+                    wallet.getId(),
+                    updateWalletDto.operationType(),
+                    updateWalletDto.amount(),
+                    wallet.getBalance()
+            ));
+            if (!inserted) {
+                throw new DuplicateKeyException(key);
+            }
+        };
+    }
+
+    public void committed(String key, UpdateWalletDto updateWalletDto, Wallet wallet) {
+        window.put(IdempotencyWindow.hash(key), wallet.getId(), fingerprint(updateWalletDto), wallet.getBalance());
+    }
+
+    private void purgeQuietly() {
+        try {
+            final Instant threshold = Instant.now().minus(idempotencyProperties.retention());
+            int deleted;
+            do {
+                deleted = idempotencyKeyRepository.deleteCreatedBefore(
+                        threshold, idempotencyProperties.purgeBatchSize());
+            } while (deleted == idempotencyProperties.purgeBatchSize());
+        } catch (RuntimeException e) {
+            log.error("Idempotency key purge failed, it will be retried", e);
+        }
+    }
+
+    private static int fingerprint(UpdateWalletDto updateWalletDto) {
+        return Objects.hash(
+                updateWalletDto.valletId(),
+                updateWalletDto.operationType(),
+                updateWalletDto.amount()
+        );
+    }
+
+    static final class DuplicateKeyException extends RuntimeException {
+        DuplicateKeyException(String key) {
+            super("Idempotency key " + key + " is already recorded", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package ani.foritk.service;
+
+import ani.foritk.entity.Money;
+import ani.foritk.entity.Wallet;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers recent idempotent responses in a ring of time buckets. A bucket is an open-addressing table
+ * of primitive arrays keyed by a 64-bit hash of the idempotency key, so an entry costs 36 bytes and no
+ * objects, and expiring a bucket is a single array fill when the ring comes back to it. An entry is only
+ * returned when it matches the wallet and request fingerprint, so a hash collision degrades to a miss.
+ */
+final class IdempotencyWindow {
+    private final long bucketNanos;
+    private final Bucket[] buckets;
+    private final LongSupplier nanoClock;
+
+    IdempotencyWindow(Duration window, int bucketCount, int bucketCapacity, LongSupplier nanoClock) {
+        this.bucketNanos = Math.max(1, window.toNanos() / bucketCount);
+        this.buckets = new Bucket[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new Bucket(bucketCapacity);
+        }
+        this.nanoClock = nanoClock;
+    }
+
+    Wallet find(long keyHash, UUID walletId, int fingerprint) {
+        final long epoch = epoch();
+        for (int i = 0; i < buckets.length; i++) {
+            final Bucket bucket = buckets[(int) Math.floorMod(epoch - i, (long) buckets.length)];
+            final Wallet wallet = bucket.find(epoch - i, keyHash, walletId, fingerprint);
+            if (wallet != null) {
+                return wallet;
+            }
+        }
+        return null;
+    }
+
+    void put(long keyHash, UUID walletId, int fingerprint, Money balance) {
+        final long epoch = epoch();
+        buckets[(int) Math.floorMod(epoch, (long) buckets.length)]
+                .put(epoch, keyHash, walletId, fingerprint, balance.minorUnits());
+    }
+
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+
+    private long epoch() {
+        return nanoClock.getAsLong() / bucketNanos;
+    }
+
+    private static final class Bucket {
+        private final long[] keys;
+        private final long[] walletMostSigBits;
+        private final long[] walletLeastSigBits;
+        private final long[] balances;
+        private final int[] fingerprints;
+        private final int mask;
+        private final int capacity;
+        private int size;
+        private long epoch = Long.MIN_VALUE;
+
+        Bucket(int capacity) {
+            final int slots = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+            this.keys = new long[slots];
+            this.walletMostSigBits = new long[slots];
+            this.walletLeastSigBits = new long[slots];
+            this.balances = new long[slots];
+            this.fingerprints = new int[slots];
+            this.mask = slots - 1;
+            this.capacity = capacity;
+        }
+
+        synchronized Wallet find(long expectedEpoch, long keyHash, UUID walletId, int fingerprint) {
+            if (epoch != expectedEpoch) {
+                return null;
+            }
+            for (int slot = (int) keyHash & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == keyHash) {
+                    if (fingerprints[slot] != fingerprint
+                            || walletMostSigBits[slot] != walletId.getMostSignificantBits()
+                            || walletLeastSigBits[slot] != walletId.getLeastSignificantBits()) {
+                        return null;
+                    }
+                    final Wallet wallet = new Wallet();
+                    wallet.setId(walletId);
+                    wallet.setBalance(Money.ofMinorUnits(balances[slot]));
+                    return wallet;
+                }
+            }
+            return null;
+        }
+
+        synchronized void put(long currentEpoch, long keyHash, UUID walletId, int fingerprint, long balance) {
+            if (epoch != currentEpoch) {
+                Arrays.fill(keys, 0);
+                size = 0;
+                epoch = currentEpoch;
+            }
+            int slot = (int) keyHash & mask;
+            while (keys[slot] != 0 && keys[slot] != keyHash) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == 0) {
+                if (size == capacity) {
+                    return;
+                }
+                size++;
+            }
+            keys[slot] = keyHash;
+            walletMostSigBits[slot] = walletId.getMostSignificantBits();
+            walletLeastSigBits[slot] = walletId.getLeastSignificantBits();
+            balances[slot] = balance;
+            fingerprints[slot] = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package ani.foritk.service;
+
+import ani.foritk.dto.OperationType;
+import ani.foritk.entity.Money;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of one partition, split into fixed-size memory-mapped segments.
+ * Every record is 48 bytes: a CRC32C of the body followed by wallet id, version, resulting balance,
+ * operation type and amount, both amounts in minor units. Reading stops at the first
+ * record whose checksum does not match, which covers both the zero-filled tail of a segment and a torn write.
+ */
+final class JournalFile implements Closeable {
+    static final int RECORD_SIZE = 48;
+    private static final int BODY_OFFSET = Integer.BYTES;
+    private static final int BODY_SIZE = RECORD_SIZE - BODY_OFFSET;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("partition-(\\d+)-(\\d+)\\.journal");
+
+    private final Path directory;
+    private final int partition;
+    private final int segmentSize;
+    private final CRC32C crc = new CRC32C();
+    private long segment;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int forcedPosition;
+
+    JournalFile(Path directory, int partition, long firstSegment, long segmentSize) {
+        this.directory = directory;
+        this.partition = partition;
+        this.segmentSize = (int) (Math.min(segmentSize, Integer.MAX_VALUE) / RECORD_SIZE * RECORD_SIZE);
+        open(firstSegment);
+    }
+
+    long currentSegment() {
+        return segment;
+    }
+
+    void append(JournalRecord record) {
+        if (buffer.remaining() < RECORD_SIZE) {
+            force();
+            closeSegment();
+            open(segment + 1);
+        }
+        final int position = buffer.position();
+        buffer.putInt(0)
+                .putLong(record.walletId().getMostSignificantBits())
+                .putLong(record.walletId().getLeastSignificantBits())
+                .putLong(record.version())
+                .putLong(record.balance().minorUnits())
+                .putLong(record.amount().minorUnits())
+                .put((byte) record.operationType().ordinal());
+        buffer.position(position + RECORD_SIZE);
+        buffer.putInt(position, checksum(crc, buffer, position));
+    }
+
+    void force() {
+        final int position = buffer.position();
+        if (position > forcedPosition) {
+            buffer.force(forcedPosition, position - forcedPosition);
+            forcedPosition = position;
+        }
+    }
+
+    void deleteSegmentsBefore(long segment) {
+        for (Path file : list(directory)) {
+            final Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+            if (matcher.matches()
+                    && Integer.parseInt(matcher.group(1)) == partition
+                    && Long.parseLong(matcher.group(2)) < segment) {
+                delete(file);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        force();
+        closeSegment();
+    }
+
+    static List<Path> list(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> SEGMENT_NAME.matcher(file.getFileName().toString()).matches())
+                    .sorted(Comparator.comparing(JournalFile::segmentOf))
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static long segmentOf(Path file) {
+        final Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a journal segment: " + file);
+        }
+        return Long.parseLong(matcher.group(2));
+    }
+
+    static int read(Path file, Consumer<JournalRecord> consumer) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            final CRC32C crc = new CRC32C();
+            int records = 0;
+            for (int position = 0; position + RECORD_SIZE <= buffer.limit(); position += RECORD_SIZE) {
+                if (buffer.getInt(position) != checksum(crc, buffer, position)) {
+                    break;
+                }
+                buffer.position(position + BODY_OFFSET);
+                final UUID walletId = new UUID(buffer.getLong(), buffer.getLong());
+                final long version = buffer.getLong();
+                final Money balance = Money.ofMinorUnits(buffer.getLong());
+                final Money amount = Money.ofMinorUnits(buffer.getLong());
+                final OperationType operationType = OperationType.values()[buffer.get()];
+                consumer.accept(new JournalRecord(walletId, version, balance, operationType, amount));
+                records++;
+            }
+            return records;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void open(long segment) {
+        final Path file = directory.resolve("partition-" + partition + "-" + segment + ".journal");
+        try {
+            this.channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.segment = segment;
+        this.forcedPosition = 0;
+    }
+
+    private void closeSegment() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int checksum(CRC32C crc, ByteBuffer buffer, int position) {
+        crc.reset();
+        crc.update(buffer.slice(position + BODY_OFFSET, BODY_SIZE));
+        return (int) crc.getValue();
+    }
+}
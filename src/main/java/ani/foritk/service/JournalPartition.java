@@ -0,0 +1,255 @@
+package ani.foritk.service;
+
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Money;
+import ani.foritk.entity.Wallet;
+import ani.foritk.exception.InsufficientFundsException;
+import ani.foritk.exception.WalletNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * Single owning writer of a subset of wallets. All state changes happen on the partition thread:
+ * a batch of queued operations is applied to the private balance map, appended to the journal,
+ * made durable with one force and only then published to readers and acknowledged. If the append or
+ * the force fails, the balances and dirty entries the batch changed are restored, so that no later
+ * checkpoint writes an operation whose caller was told it failed.
+ */
+@Slf4j
+final class JournalPartition implements Runnable {
+    private final JournalFile journal;
+    private final int maxBatchSize;
+    private final ConcurrentMap<UUID, Wallet> published;
+    private final Map<UUID, Wallet> wallets = new HashMap<>();
+    private final Map<UUID, Wallet> dirty = new HashMap<>();
+    private final Map<UUID, Undo> undo = new HashMap<>();
+    private List<Wallet> snapshotted;
+    private final BlockingQueue<Task> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile RuntimeException failure;
+    private volatile boolean stopped;
+
+    JournalPartition(int index, JournalFile journal, int maxBatchSize, ConcurrentMap<UUID, Wallet> published) {
+        this.journal = journal;
+        this.maxBatchSize = maxBatchSize;
+        this.published = published;
+        this.thread = new Thread(this, "wallet-journal-" + index);
+    }
+
+    void load(Wallet wallet) {
+        wallets.put(wallet.getId(), wallet);
+        published.put(wallet.getId(), wallet);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    CompletableFuture<Wallet> submit(UpdateWalletDto updateWalletDto) {
+        final Operation operation = new Operation(updateWalletDto);
+        enqueue(operation);
+        return operation.result;
+    }
+
+    <T> CompletableFuture<T> call(Supplier<T> action) {
+        final Control<T> control = new Control<>(action);
+        enqueue(control);
+        return control.result;
+    }
+
+    CheckpointSnapshot snapshot() {
+        final List<Wallet> changed = new ArrayList<>(dirty.values());
+        dirty.clear();
+        snapshotted = changed;
+        return new CheckpointSnapshot(changed, journal.currentSegment());
+    }
+
+    void markDirty(Collection<Wallet> changed) {
+        changed.forEach(wallet -> dirty.put(wallet.getId(), wallets.get(wallet.getId())));
+    }
+
+    void deleteSegmentsBefore(long segment) {
+        journal.deleteSegmentsBefore(segment);
+    }
+
+    void stop() throws InterruptedException {
+        stopped = true;
+        queue.add(new Control<>(() -> null));
+        thread.join();
+        journal.close();
+    }
+
+    @Override
+    public void run() {
+        final List<Task> batch = new ArrayList<>(maxBatchSize);
+        while (!stopped || !queue.isEmpty()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, maxBatchSize - 1);
+            process(batch);
+            batch.clear();
+        }
+    }
+
+    private void enqueue(Task task) {
+        if (failure != null) {
+            throw failure;
+        }
+        queue.add(task);
+    }
+
+    private void process(List<Task> batch) {
+        if (failure != null) {
+            batch.forEach(task -> task.fail(failure));
+            return;
+        }
+        try {
+            batch.forEach(Task::execute);
+            journal.force();
+        } catch (RuntimeException e) {
+            log.error("Journal partition {} has failed, rejecting further operations", thread.getName(), e);
+            failure = new IllegalStateException("Wallet journal is unavailable", e);
+            rollBack();
+            batch.forEach(task -> task.fail(failure));
+            return;
+        } finally {
+            snapshotted = null;
+        }
+        undo.clear();
+        batch.forEach(Task::complete);
+    }
+
+    /**
+     * Restores the state before the batch. A snapshot taken in the batch fails with it, so the wallets it
+     * took are dirty again.
+     */
+    private void rollBack() {
+        if (snapshotted != null) {
+            snapshotted.forEach(wallet -> dirty.putIfAbsent(wallet.getId(), wallet));
+        }
+        undo.forEach((id, before) -> {
+            wallets.put(id, before.wallet());
+            if (before.dirty() == null) {
+                dirty.remove(id);
+            } else {
+                dirty.put(id, before.dirty());
+            }
+        });
+        undo.clear();
+    }
+
+    private abstract static class Task {
+        abstract void execute();
+
+        abstract void complete();
+
+        abstract void fail(RuntimeException e);
+    }
+
+    private final class Operation extends Task {
+        private final UpdateWalletDto request;
+        private final CompletableFuture<Wallet> result = new CompletableFuture<>();
+        private Wallet applied;
+        private RuntimeException rejected;
+
+        private Operation(UpdateWalletDto request) {
+            this.request = request;
+        }
+
+        @Override
+        void execute() {
+            final UUID id = request.valletId();
+            final Wallet current = wallets.get(id);
+            if (current == null) {
+                rejected = new WalletNotFoundException(id);
+                return;
+            }
+            final Money amount = request.amount();
+            final Money newBalance;
+            try {
+                newBalance = BalanceOperations.apply(id, current.getBalance(), request.operationType(), amount);
+            } catch (InsufficientFundsException e) {
+                rejected = e;
+                return;
+            }
+            final long version = current.getVersion() + 1;
+            undo.putIfAbsent(id, new Undo(current, dirty.get(id)));
+            journal.append(new JournalRecord(id, version, newBalance, request.operationType(), amount));
+
+            applied = new Wallet();
+            applied.setId(id);
+            applied.setBalance(newBalance);
+            applied.setVersion(version);
+            wallets.put(id, applied);
+            dirty.put(id, applied);
+        }
+
+        @Override
+        void complete() {
+            if (rejected != null) {
+                result.completeExceptionally(rejected);
+                return;
+            }
+            published.put(applied.getId(), applied);
+            result.complete(applied);
+        }
+
+        @Override
+        void fail(RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private static final class Control<T> extends Task {
+        private final Supplier<T> action;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private T value;
+        private RuntimeException error;
+
+        private Control(Supplier<T> action) {
+            this.action = action;
+        }
+
+        @Override
+        void execute() {
+            try {
+                value = action.get();
+            } catch (RuntimeException e) {
+                error = e;
+            }
+        }
+
+        @Override
+        void complete() {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        }
+
+        @Override
+        void fail(RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private record Undo(Wallet wallet, Wallet dirty) {}
+
+    record CheckpointSnapshot(List<Wallet> wallets, long segment) {}
+}
@@ -0,0 +1,14 @@
+package ani.foritk.service;
+
+import ani.foritk.dto.OperationType;
+import ani.foritk.entity.Money;
+
+import java.util.UUID;
+
+record JournalRecord(
+        UUID walletId,
+        long version,
+        Money balance,
+        OperationType operationType,
+        Money amount
+) {}
@@ -0,0 +1,182 @@
+package ani.foritk.service;
+
+import ani.foritk.config.JournalProperties;
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Wallet;
+import ani.foritk.exception.WalletNotFoundException;
+import ani.foritk.repository.WalletJdbcRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps authoritative balances in memory and acknowledges an update as soon as it is forced to the
+ * partition journal. The wallet table is brought up to date by periodic checkpoints that write the
+ * latest balance and version of every changed wallet; a journal segment is deleted once a checkpoint
+ * started after it has been committed. On startup balances are loaded from the table and every journal
+ * record with a newer version than the stored one is replayed and checkpointed before serving traffic.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "wallet.journal", name = "enabled", havingValue = "true")
+public class JournalWalletEngine {
+    private final WalletJdbcRepository walletJdbcRepository;
+    private final JournalProperties journalProperties;
+    private final ConcurrentHashMap<UUID, Wallet> wallets = new ConcurrentHashMap<>();
+    private final List<JournalPartition> partitions = new ArrayList<>();
+    private final ScheduledExecutorService checkpointExecutor = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "wallet-journal-checkpoint"));
+    private volatile boolean running;
+
+    public JournalWalletEngine(WalletJdbcRepository walletJdbcRepository, JournalProperties journalProperties) {
+        this.walletJdbcRepository = walletJdbcRepository;
+        this.journalProperties = journalProperties;
+    }
+
+    @PostConstruct
+    public void start() {
+        final Path directory = journalProperties.directory();
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        final long firstSegment = recover(directory);
+
+        for (int i = 0; i < journalProperties.partitions(); i++) {
+            final JournalFile journal = new JournalFile(
+                    directory, i, firstSegment, journalProperties.segmentSize().toBytes());
+            partitions.add(new JournalPartition(i, journal, journalProperties.maxBatchSize(), wallets));
+        }
+        wallets.values().forEach(wallet -> partitionOf(wallet.getId()).load(wallet));
+        partitions.forEach(JournalPartition::start);
+        running = true;
+
+        final long interval = journalProperties.checkpointInterval().toMillis();
+        checkpointExecutor.scheduleWithFixedDelay(this::checkpointQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("Wallet journal started with {} wallets in {} partitions", wallets.size(), partitions.size());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        checkpointExecutor.shutdown();
+        checkpointExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        for (JournalPartition partition : partitions) {
+            partition.stop();
+        }
+        checkpoint();
+    }
+
+    public Wallet getWallet(UUID id) {
+        return findWallet(id).orElseThrow(() -> new WalletNotFoundException(id));
+    }
+
+    public Optional<Wallet> findWallet(UUID id) {
+        return Optional.ofNullable(wallets.get(id));
+    }
+
+    public Wallet updateBalance(UpdateWalletDto updateWalletDto) {
+        if (!running) {
+            throw new IllegalStateException("Wallet journal is not running");
+        }
+        return await(partitionOf(updateWalletDto.valletId()).submit(updateWalletDto));
+    }
+
+    void checkpoint() {
+        for (JournalPartition partition : partitions) {
+            final JournalPartition.CheckpointSnapshot snapshot = running
+                    ? await(partition.call(partition::snapshot))
+                    : partition.snapshot();
+            if (!snapshot.wallets().isEmpty()) {
+                try {
+                    walletJdbcRepository.checkpoint(snapshot.wallets(), journalProperties.checkpointBatchSize());
+                } catch (RuntimeException e) {
+                    if (running) {
+                        partition.call(() -> {
+                            partition.markDirty(snapshot.wallets());
+                            return null;
+                        });
+                    }
+                    throw e;
+                }
+            }
+            partition.deleteSegmentsBefore(running ? snapshot.segment() : Long.MAX_VALUE);
+        }
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (RuntimeException e) {
+            log.error("Wallet journal checkpoint failed, it will be retried", e);
+        }
+    }
+
+    private long recover(Path directory) {
+        walletJdbcRepository.forEachWallet(wallet -> wallets.put(wallet.getId(), wallet));
+
+        final Map<UUID, Wallet> recovered = new HashMap<>();
+        final List<Path> segments = JournalFile.list(directory);
+        long nextSegment = 0;
+        for (Path segment : segments) {
+            nextSegment = Math.max(nextSegment, JournalFile.segmentOf(segment) + 1);
+            JournalFile.read(segment, record -> {
+                final Wallet current = wallets.get(record.walletId());
+                if (current == null) {
+                    log.warn("Skipping journal record of unknown wallet {}", record.walletId());
+                    return;
+                }
+                if (record.version() > current.getVersion()) {
+                    final Wallet wallet = new Wallet();
+                    wallet.setId(record.walletId());
+                    wallet.setBalance(record.balance());
+                    wallet.setVersion(record.version());
+                    wallets.put(wallet.getId(), wallet);
+                    recovered.put(wallet.getId(), wallet);
+                }
+            });
+        }
+
+        if (!recovered.isEmpty()) {
+            walletJdbcRepository.checkpoint(recovered.values(), journalProperties.checkpointBatchSize());
+        }
+        segments.forEach(JournalFile::delete);
+        log.info("Replayed {} journal segments, {} wallets recovered", segments.size(), recovered.size());
+        return nextSegment;
+    }
+
+    private JournalPartition partitionOf(UUID id) {
+        return partitions.get(Math.floorMod(id.hashCode(), partitions.size()));
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
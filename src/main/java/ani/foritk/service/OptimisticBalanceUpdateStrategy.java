@@ -0,0 +1,66 @@
+package ani.foritk.service;
+
+import ani.foritk.config.OptimisticRetryProperties;
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Money;
+import ani.foritk.entity.Wallet;
+import ani.foritk.exception.ConcurrentUpdateException;
+import ani.foritk.exception.WalletNotFoundException;
+import ani.foritk.repository.WalletRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+@Component
+@ConditionalOnProperty(prefix = "wallet.update", name = "strategy", havingValue = "optimistic")
+public class OptimisticBalanceUpdateStrategy implements BalanceUpdateStrategy {
+    private final WalletRepository walletRepository;
+    private final TransactionOperations transactionOperations;
+    private final OptimisticRetryProperties retryProperties;
+
+    public OptimisticBalanceUpdateStrategy(WalletRepository walletRepository,
+                                           TransactionOperations transactionOperations,
+                                           OptimisticRetryProperties retryProperties) {
+        this.walletRepository = walletRepository;
+        this.transactionOperations = transactionOperations;
+        this.retryProperties = retryProperties;
+    }
+
+    @Override
+    public Wallet updateBalance(UpdateWalletDto updateWalletDto, Consumer<Wallet> inTransaction) {
+        return Retries.withBackoff(
+                () -> transactionOperations.execute(status -> {
+                    final Wallet wallet = applyUpdate(updateWalletDto);
+                    inTransaction.accept(wallet);
+                    return wallet;
+                }),
+                OptimisticLockingFailureException.class,
+                retryProperties.maxAttempts(),
+                retryProperties.initialBackoff(),
+                retryProperties.maxBackoff(),
+                e -> new ConcurrentUpdateException(
+                        "Wallet with ID " + updateWalletDto.valletId() + " is updated concurrently, "
+                                + "gave up after " + retryProperties.maxAttempts() + " attempts", e)
+        );
+    }
+
+    private Wallet applyUpdate(UpdateWalletDto updateWalletDto) {
+        final UUID id = updateWalletDto.valletId();
+        final Wallet walletToUpdate = walletRepository.findById(id)
+                .orElseThrow(() -> new WalletNotFoundException(id));
+
+        final Money newBalance = BalanceOperations.apply(
+                id,
+                walletToUpdate.getBalance(),
+                updateWalletDto.operationType(),
+                updateWalletDto.amount()
+        );
+        walletToUpdate.setBalance(newBalance);
+
+        return walletRepository.saveAndFlush(walletToUpdate);
+    }
+}
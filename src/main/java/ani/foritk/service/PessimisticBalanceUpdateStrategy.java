@@ -0,0 +1,70 @@
+package ani.foritk.service;
+
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Money;
+import ani.foritk.entity.Wallet;
+import ani.foritk.exception.WalletNotFoundException;
+import ani.foritk.repository.WalletRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+@Component
+@ConditionalOnProperty(prefix = "wallet.update", name = "strategy", havingValue = "pessimistic", matchIfMissing = true)
+public class PessimisticBalanceUpdateStrategy implements BalanceUpdateStrategy {
+    private final WalletRepository walletRepository;
+    private final TransactionOperations transactionOperations;
+    private final WalletUpdateMetrics walletUpdateMetrics;
+
+    public PessimisticBalanceUpdateStrategy(WalletRepository walletRepository,
+                                            TransactionOperations transactionOperations,
+                                            Optional<WalletUpdateMetrics> walletUpdateMetrics) {
+        this.walletRepository = walletRepository;
+        this.transactionOperations = transactionOperations;
+        this.walletUpdateMetrics = walletUpdateMetrics.orElse(null);
+    }
+
+    @Override
+    public Wallet updateBalance(UpdateWalletDto updateWalletDto, Consumer<Wallet> inTransaction) {
+        final WalletUpdateMetrics.Phases phases = walletUpdateMetrics != null
+                ? walletUpdateMetrics.start(updateWalletDto.operationType())
+                : WalletUpdateMetrics.Phases.NONE;
+        try {
+            final Wallet updated = transactionOperations.execute(status -> {
+                phases.end(WalletUpdateMetrics.Phase.CONNECTION);
+                final Wallet wallet = applyUpdate(updateWalletDto, phases);
+                inTransaction.accept(wallet);
+                phases.end(WalletUpdateMetrics.Phase.LOGIC);
+                return wallet;
+            });
+            phases.end(WalletUpdateMetrics.Phase.COMMIT);
+            phases.succeeded();
+            return updated;
+        } catch (RuntimeException e) {
+            phases.failed(e);
+            throw e;
+        }
+    }
+
+    private Wallet applyUpdate(UpdateWalletDto updateWalletDto, WalletUpdateMetrics.Phases phases) {
+        final UUID id = updateWalletDto.valletId();
+        final Optional<Wallet> locked = walletRepository.findByIdAndLock(id);
+        phases.end(WalletUpdateMetrics.Phase.LOCK);
+        final Wallet walletToUpdate = locked
+                .orElseThrow(() -> new WalletNotFoundException(id));
+
+        final Money newBalance = BalanceOperations.apply(
+                id,
+                walletToUpdate.getBalance(),
+                updateWalletDto.operationType(),
+                updateWalletDto.amount()
+        );
+        walletToUpdate.setBalance(newBalance);
+
+        return walletRepository.save(walletToUpdate);
+    }
+}
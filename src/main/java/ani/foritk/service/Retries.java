@@ -0,0 +1,45 @@
+package ani.foritk.service;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+final class Retries {
+
+    private Retries() {
+    }
+
+    static <T> T withBackoff(Supplier<T> action,
+                             Class<? extends RuntimeException> retryOn,
+                             int maxAttempts,
+                             Duration initialBackoff,
+                             Duration maxBackoff,
+                             Function<RuntimeException, RuntimeException> onExhausted) {
+        long backoffNanos = initialBackoff.toNanos();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (RuntimeException e) {
+                if (!retryOn.isInstance(e)) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    throw onExhausted.apply(e);
+                }
+                pause(ThreadLocalRandom.current().nextLong(backoffNanos + 1), e);
+                backoffNanos = Math.min(backoffNanos * 2, maxBackoff.toNanos());
+            }
+        }
+    }
+
+    private static void pause(long nanos, RuntimeException cause) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+}
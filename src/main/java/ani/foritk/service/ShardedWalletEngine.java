@@ -0,0 +1,194 @@
+package ani.foritk.service;
+
+import ani.foritk.config.ShardingProperties;
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Money;
+import ani.foritk.entity.Wallet;
+import ani.foritk.exception.InsufficientFundsException;
+import ani.foritk.exception.WalletNotFoundException;
+import ani.foritk.repository.WalletShardRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Spreads the balance of the configured hot wallets over {@code wallet.sharding.shards} sub-balances so
+ * that concurrent updates of one wallet lock different rows. The balance of a sharded wallet is the sum
+ * of its own balance and its shards. A deposit goes to the shard of the calling thread; a withdrawal
+ * takes the amount from that shard if it holds enough, and otherwise locks the wallet row and all its
+ * shards, checks the total and spreads what remains evenly over the shards. No shard goes below zero,
+ * so neither does the total. Batch updates and transfers lock all shards of the sharded wallets they
+ * touch and spread the new totals the same way.
+ * <p>
+ * Updates of different shards are not serialized, so no update knows the total that results from it
+ * alone. Its ledger row and outbox event carry no balance, and the events of a sharded wallet may be
+ * relayed out of order; consumers apply them as deltas. Per-wallet event order holds only for
+ * unsharded wallets.
+ */
+@Slf4j
+@Component
+@DependsOnDatabaseInitialization
+@ConditionalOnProperty(prefix = "wallet.sharding", name = "enabled", havingValue = "true")
+public class ShardedWalletEngine {
+    private final WalletShardRepository walletShardRepository;
+    private final TransactionOperations transactionOperations;
+    private final ShardingProperties shardingProperties;
+    private final Set<UUID> shardedWallets = ConcurrentHashMap.newKeySet();
+    private final Counter rebalances;
+
+    public ShardedWalletEngine(WalletShardRepository walletShardRepository,
+                               TransactionOperations transactionOperations,
+                               ShardingProperties shardingProperties,
+                               MeterRegistry meterRegistry) {
+        this.walletShardRepository = walletShardRepository;
+        this.transactionOperations = transactionOperations;
+        this.shardingProperties = shardingProperties;
+        this.rebalances = Counter.builder("wallet.sharding.rebalances")
+                .description("Withdrawals that had to lock all shards of a wallet")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Creates the missing shards of every configured wallet. Shards left over from a larger shard count
+     * keep their balance until the next rebalance empties them.
+     */
+    @PostConstruct
+    public void start() {
+        for (UUID walletId : shardingProperties.wallets()) {
+            if (walletShardRepository.createShards(walletId, shardingProperties.shards())) {
+                shardedWallets.add(walletId);
+            } else {
+                log.warn("Wallet {} is configured for sharding but does not exist", walletId);
+            }
+        }
+        log.info("Wallet sharding started for {} wallets with {} shards", shardedWallets.size(),
+                shardingProperties.shards());
+    }
+
+    public boolean isSharded(UUID walletId) {
+        return shardedWallets.contains(walletId);
+    }
+
+    public Wallet getWallet(UUID walletId) {
+        return walletShardRepository.findTotal(walletId)
+                .orElseThrow(() -> new WalletNotFoundException(walletId));
+    }
+
+    /**
+     * Applies the update and passes the wallet with its total balance to {@code inTransaction} before the
+     * transaction commits. The total is read after the update and includes other shards' updates committed
+     * by then. The version of a sharded wallet only changes on a rebalance.
+     */
+    public Wallet updateBalance(UpdateWalletDto updateWalletDto, Consumer<Wallet> inTransaction) {
+        final UUID id = updateWalletDto.valletId();
+        final Wallet wallet = transactionOperations.execute(status -> {
+            if (!applyLocally(updateWalletDto)) {
+                status.setRollbackOnly();
+                return null;
+            }
+            return recorded(id, inTransaction);
+        });
+        if (wallet != null) {
+            return wallet;
+        }
+        return transactionOperations.execute(status -> {
+            rebalance(id, updateWalletDto.amount());
+            return recorded(id, inTransaction);
+        });
+    }
+
+    /**
+     * Returns the locked wallets with the total balance of the sharded ones, whose shards are locked after
+     * all wallet rows in the order of {@code locked}. The caller must have locked the rows in id order; a
+     * rebalance also takes the shards after the row, so neither can wait for the other in a cycle.
+     */
+    public Map<UUID, Wallet> lockTotals(Map<UUID, Wallet> locked) {
+        final Map<UUID, Wallet> wallets = new LinkedHashMap<>(locked);
+        wallets.replaceAll((id, wallet) -> {
+            if (!isSharded(id)) {
+                return wallet;
+            }
+            final Wallet total = new Wallet();
+            total.setId(id);
+            total.setBalance(Money.ofMinorUnits(
+                    walletShardRepository.lockAll(id).stream().mapToLong(Long::longValue).sum()));
+            total.setVersion(wallet.getVersion());
+            return total;
+        });
+        return wallets;
+    }
+
+    /**
+     * Sets the total balance of a wallet locked by {@link #lockTotals}, spread evenly over its shards.
+     */
+    public void setBalance(UUID walletId, Money balance) {
+        spread(walletId, balance.minorUnits());
+    }
+
+    /**
+     * Returns false if the local shard cannot cover a withdrawal. The transaction has to be rolled back
+     * before rebalancing then: a withdrawal that waited for a concurrent update of the shard keeps it
+     * locked even though it did not change it, and a rebalance holding a shard could deadlock with another.
+     */
+    private boolean applyLocally(UpdateWalletDto updateWalletDto) {
+        final UUID id = updateWalletDto.valletId();
+        final long amount = updateWalletDto.amount().minorUnits();
+        return switch (updateWalletDto.operationType()) {
+            case DEPOSIT -> {
+                if (!walletShardRepository.deposit(id, localShard(), amount)) {
+                    throw new WalletNotFoundException(id);
+                }
+                yield true;
+            }
+            case WITHDRAW -> walletShardRepository.withdraw(id, localShard(), amount);
+        };
+    }
+
+    private Wallet recorded(UUID id, Consumer<Wallet> inTransaction) {
+        final Wallet wallet = getWallet(id);
+        inTransaction.accept(wallet);
+        return wallet;
+    }
+
+    private void rebalance(UUID id, Money amount) {
+        rebalances.increment();
+        final List<Long> balances = walletShardRepository.lockAll(id);
+        if (balances.isEmpty()) {
+            throw new WalletNotFoundException(id);
+        }
+        final long total = balances.stream().mapToLong(Long::longValue).sum();
+        if (total < amount.minorUnits()) {
+            throw new InsufficientFundsException(id, amount);
+        }
+        spread(id, total - amount.minorUnits());
+    }
+
+    private void spread(UUID id, long total) {
+        final int shards = shardingProperties.shards();
+        final long[] shardBalances = new long[shards];
+        Arrays.fill(shardBalances, total / shards);
+        walletShardRepository.redistribute(id, total % shards, shardBalances);
+    }
+
+    /**
+     * Threads are spread over the shards, so requests served by different threads do not wait for each
+     * other unless a withdrawal has to rebalance.
+     */
+    private int localShard() {
+        return (int) Math.floorMod(Thread.currentThread().getId(), (long) shardingProperties.shards());
+    }
+}
@@ -0,0 +1,144 @@
+package ani.foritk.service;
+
+import ani.foritk.dto.BatchItemResultDto;
+import ani.foritk.dto.BatchItemStatus;
+import ani.foritk.dto.BatchMode;
+import ani.foritk.dto.BatchUpdateResultDto;
+import ani.foritk.dto.BatchUpdateWalletDto;
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Money;
+import ani.foritk.entity.Wallet;
+import ani.foritk.exception.FeatureUnavailableException;
+import ani.foritk.exception.InsufficientFundsException;
+import ani.foritk.repository.WalletJdbcRepository;
+import ani.foritk.repository.WalletOperationRecord;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+@Service
+public class WalletBatchService {
+    private static final int JDBC_BATCH_SIZE = 500;
+
+    private final WalletJdbcRepository walletJdbcRepository;
+    private final TransactionOperations transactionOperations;
+    private final WalletCache walletCache;
+    private final JournalWalletEngine journalWalletEngine;
+    private final WalletOperationLedger walletOperationLedger;
+    private final BalanceEventOutbox balanceEventOutbox;
+    private final ShardedWalletEngine shardedWalletEngine;
+
+    public WalletBatchService(WalletJdbcRepository walletJdbcRepository,
+                              TransactionOperations transactionOperations,
+                              Optional<WalletCache> walletCache,
+                              Optional<JournalWalletEngine> journalWalletEngine,
+                              Optional<WalletOperationLedger> walletOperationLedger,
+                              Optional<BalanceEventOutbox> balanceEventOutbox,
+                              Optional<ShardedWalletEngine> shardedWalletEngine) {
+        this.walletJdbcRepository = walletJdbcRepository;
+        this.transactionOperations = transactionOperations;
+        this.walletCache = walletCache.orElse(null);
+        this.journalWalletEngine = journalWalletEngine.orElse(null);
+        this.walletOperationLedger = walletOperationLedger.orElse(null);
+        this.balanceEventOutbox = balanceEventOutbox.orElse(null);
+        this.shardedWalletEngine = shardedWalletEngine.orElse(null);
+    }
+
+    public BatchUpdateResultDto updateBalances(BatchUpdateWalletDto batchUpdateWalletDto) {
+        if (journalWalletEngine != null) {
+            throw new FeatureUnavailableException("Batch updates are not available with the wallet journal");
+        }
+        final BatchOutcome outcome = transactionOperations.execute(status -> apply(batchUpdateWalletDto, status));
+        if (outcome.result().committed() && walletCache != null) {
+            outcome.changed().stream().filter(wallet -> !isSharded(wallet.getId())).forEach(walletCache::committed);
+        }
+        return outcome.result();
+    }
+
+    private BatchOutcome apply(BatchUpdateWalletDto batchUpdateWalletDto, TransactionStatus status) {
+        final List<UpdateWalletDto> operations = batchUpdateWalletDto.operations();
+        final Set<UUID> ids = new LinkedHashSet<>();
+        operations.forEach(operation -> ids.add(operation.valletId()));
+        final Map<UUID, Wallet> locked = walletJdbcRepository.lockAll(ids);
+        final Map<UUID, Wallet> wallets = shardedWalletEngine != null ? shardedWalletEngine.lockTotals(locked) : locked;
+
+        final Map<UUID, Money> balances = new HashMap<>();
+        final List<BatchItemResultDto> results = new ArrayList<>(operations.size());
+        final List<WalletOperationRecord> applied = new ArrayList<>(operations.size());
+        boolean failed = false;
+        for (int i = 0; i < operations.size(); i++) {
+            final UpdateWalletDto operation = operations.get(i);
+            final UUID id = operation.valletId();
+            final Wallet wallet = wallets.get(id);
+            if (wallet == null) {
+                results.add(new BatchItemResultDto(i, id, BatchItemStatus.NOT_FOUND, null,
+                        "Wallet with ID " + id + " is not found"));
+                failed = true;
+                continue;
+            }
+            try {
+                final Money newBalance = BalanceOperations.apply(
+                        id,
+                        balances.getOrDefault(id, wallet.getBalance()),
+                        operation.operationType(),
+                        operation.amount()
+                );
+                balances.put(id, newBalance);
+                applied.add(new WalletOperationRecord(id, operation.operationType(), operation.amount(),
+                        isSharded(id) ? null : newBalance));
+                results.add(new BatchItemResultDto(i, id, BatchItemStatus.APPLIED, newBalance, null));
+            } catch (InsufficientFundsException e) {
+                results.add(new BatchItemResultDto(i, id, BatchItemStatus.INSUFFICIENT_FUNDS, null, e.getMessage()));
+                failed = true;
+            }
+        }
+
+        final BatchMode mode = batchUpdateWalletDto.mode();
+        if (failed && mode == BatchMode.ALL_OR_NOTHING) {
+            status.setRollbackOnly();
+            final List<BatchItemResultDto> rolledBack = results.stream()
+                    .map(item -> item.status() != BatchItemStatus.APPLIED ? item : new BatchItemResultDto(
+                            item.index(), item.valletId(), BatchItemStatus.ROLLED_BACK, null, null))
+                    .toList();
+            return new BatchOutcome(new BatchUpdateResultDto(mode, false, rolledBack), List.of());
+        }
+
+        final List<Wallet> changed = new ArrayList<>(balances.size());
+        final List<Wallet> rows = new ArrayList<>(balances.size());
+        balances.forEach((id, balance) -> {
+            final Wallet wallet = new Wallet();
+            wallet.setId(id);
+            wallet.setBalance(balance);
+            wallet.setVersion(wallets.get(id).getVersion() + 1);
+            changed.add(wallet);
+            if (isSharded(id)) {
+                shardedWalletEngine.setBalance(id, balance);
+            } else {
+                rows.add(wallet);
+            }
+        });
+        walletJdbcRepository.updateBalances(rows, JDBC_BATCH_SIZE);
+        if (walletOperationLedger != null) {
+            walletOperationLedger.recordAll(applied);
+        }
+        if (balanceEventOutbox != null) {
+            balanceEventOutbox.recordAll(applied);
+        }
+        return new BatchOutcome(new BatchUpdateResultDto(mode, true, results), changed);
+    }
+
+    private boolean isSharded(UUID id) {
+        return shardedWalletEngine != null && shardedWalletEngine.isSharded(id);
+    }
+
+    private record BatchOutcome(BatchUpdateResultDto result, List<Wallet> changed) {}
+}
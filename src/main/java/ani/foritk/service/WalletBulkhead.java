@@ -0,0 +1,89 @@
+package ani.foritk.service;
+
+import ani.foritk.config.BulkheadProperties;
+import ani.foritk.exception.WalletBusyException;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Admits balance updates in two steps. At most {@code maxPerWallet} updates of one wallet may be in
+ * flight, so a hot wallet queues on its row lock with a bounded number of requests and the rest are
+ * rejected at once. Admitted updates then take a permit of a fair semaphore sized to the connection
+ * pool, so excess requests wait on the semaphore, which unmounts a virtual thread, rather than inside
+ * Hikari or on a row lock while holding a connection.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "wallet.bulkhead", name = "enabled", havingValue = "true")
+public class WalletBulkhead {
+    private final ConcurrentHashMap<UUID, Integer> inFlight = new ConcurrentHashMap<>();
+    private final int maxPerWallet;
+    private final long acquireTimeoutNanos;
+    private final Semaphore permits;
+
+    public WalletBulkhead(BulkheadProperties bulkheadProperties, DataSource dataSource) {
+        this.maxPerWallet = bulkheadProperties.maxPerWallet();
+        this.acquireTimeoutNanos = bulkheadProperties.acquireTimeout().toNanos();
+        final int maxConcurrent = bulkheadProperties.maxConcurrent() > 0
+                ? bulkheadProperties.maxConcurrent()
+                : poolSize(dataSource);
+        this.permits = new Semaphore(maxConcurrent, true);
+        log.info("Wallet bulkhead admits {} updates per wallet and {} in total", maxPerWallet, maxConcurrent);
+    }
+
+    public <T> T execute(UUID walletId, Supplier<T> action) {
+        if (!enter(walletId)) {
+            throw new WalletBusyException(
+                    "Wallet with ID " + walletId + " has " + maxPerWallet + " updates in flight");
+        }
+        try {
+            if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new WalletBusyException("No capacity to update wallet with ID " + walletId);
+            }
+            try {
+                return action.get();
+            } finally {
+                permits.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WalletBusyException("Interrupted while waiting to update wallet with ID " + walletId);
+        } finally {
+            inFlight.computeIfPresent(walletId, (id, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    private boolean enter(UUID walletId) {
+        final boolean[] admitted = new boolean[1];
+        inFlight.compute(walletId, (id, count) -> {
+            final int current = count == null ? 0 : count;
+            if (current >= maxPerWallet) {
+                return count;
+            }
+            admitted[0] = true;
+            return current + 1;
+        });
+        return admitted[0];
+    }
+
+    private static int poolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            log.warn("Cannot read the connection pool size", e);
+        }
+        throw new IllegalStateException("Set wallet.bulkhead.max-concurrent for a non-Hikari data source");
+    }
+}
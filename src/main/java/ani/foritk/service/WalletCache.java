@@ -0,0 +1,59 @@
+package ani.foritk.service;
+
+import ani.foritk.config.WalletCacheProperties;
+import ani.foritk.entity.Wallet;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of committed wallet state. Entries are only created by reads; committed updates
+ * replace an existing entry when they carry a newer version and drop it when the order cannot be told,
+ * so a late update never overwrites a newer balance and never resurrects an evicted one.
+ */
+@Component
+@ConditionalOnProperty(prefix = "wallet.cache", name = "enabled", havingValue = "true")
+public class WalletCache {
+    private final Cache<UUID, Wallet> cache;
+
+    public WalletCache(WalletCacheProperties walletCacheProperties, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(walletCacheProperties.maximumSize())
+                .expireAfterWrite(walletCacheProperties.ttl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "wallets");
+    }
+
+    public Wallet get(UUID id, Function<UUID, Wallet> loader) {
+        return cache.get(id, loader);
+    }
+
+    public void committed(Wallet wallet) {
+        cache.asMap().computeIfPresent(wallet.getId(), (id, cached) -> {
+            if (wallet.getVersion() == null || cached.getVersion() == null) {
+                return null;
+            }
+            final int order = Long.compare(wallet.getVersion(), cached.getVersion());
+            if (order > 0) {
+                return wallet;
+            }
+            if (order == 0 && !Objects.equals(wallet.getBalance(), cached.getBalance())) {
+                return null;
+            }
+            return cached;
+        });
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,130 @@
+package ani.foritk.service;
+
+import ani.foritk.config.WalletExistenceFilterProperties;
+import ani.foritk.repository.WalletJdbcRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers whether a wallet ID can exist with as few database round trips as possible. The filter is built
+ * from the wallet table in the background on startup and rebuilt periodically, sized from the current row
+ * count; until the first build completes every ID is let through. Wallets created by this instance are
+ * added as soon as they are committed. Wallets created by other instances or writers are only in the next
+ * rebuild, so an ID the filter rules out is looked up on the primary before it is rejected, unless
+ * {@code wallet.existence-filter.single-writer} asserts that this instance creates every wallet.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "wallet.existence-filter", name = "enabled", havingValue = "true")
+public class WalletExistenceFilter {
+    private final WalletJdbcRepository walletJdbcRepository;
+    private final WalletExistenceFilterProperties properties;
+    private final Counter rejections;
+    private final Counter lateWallets;
+    private final ScheduledExecutorService rebuildExecutor = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "wallet-existence-filter"));
+    private volatile WalletIdFilter current;
+    private volatile WalletIdFilter building;
+
+    public WalletExistenceFilter(WalletJdbcRepository walletJdbcRepository,
+                                 WalletExistenceFilterProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.walletJdbcRepository = walletJdbcRepository;
+        this.properties = properties;
+        this.rejections = Counter.builder("wallet.existence_filter.rejections")
+                .description("Requests rejected because the wallet ID is definitely unknown")
+                .register(meterRegistry);
+        this.lateWallets = Counter.builder("wallet.existence_filter.late_wallets")
+                .description("Wallets ruled out by the filter but found, created elsewhere since the last rebuild")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        final long interval = properties.rebuildInterval().toMillis();
+        rebuildExecutor.scheduleWithFixedDelay(this::rebuildQuietly, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * Returns {@code false} only for IDs that are definitely not in the wallet table, and counts them.
+     */
+    public boolean mightExist(UUID id) {
+        final WalletIdFilter filter = current;
+        if (filter == null || filter.mightContain(id)) {
+            return true;
+        }
+        if (!properties.singleWriter() && walletJdbcRepository.exists(id)) {
+            lateWallets.increment();
+            added(id);
+            return true;
+        }
+        rejections.increment();
+        return false;
+    }
+
+    /**
+     * Returns whether an ID the filter rules out is rejected without a query, so that callers that look up
+     * many IDs at once can skip it rather than query the misses one by one.
+     */
+    public boolean isSingleWriter() {
+        return properties.singleWriter();
+    }
+
+    /**
+     * Registers a wallet after the transaction that inserted it has committed.
+     */
+    public void added(UUID id) {
+        final WalletIdFilter next = building;
+        if (next != null) {
+            next.add(id);
+        }
+        final WalletIdFilter filter = current;
+        if (filter != null && filter != next) {
+            filter.add(id);
+        }
+    }
+
+    /**
+     * Builds a new filter and swaps it in. The new filter is visible to {@link #added} from before the scan
+     * starts until after it replaces the current one, and {@link #added} reads the two in the opposite order,
+     * so a wallet committed after the scan's snapshot is never lost.
+     */
+    void rebuild() {
+        final long startNanos = System.nanoTime();
+        final long count = walletJdbcRepository.countWallets();
+        final long capacity = Math.max(properties.minimumCapacity(), (long) (count * properties.headroom()));
+        final WalletIdFilter next = new WalletIdFilter(capacity, properties.falsePositiveRate());
+        building = next;
+        try {
+            walletJdbcRepository.forEachWalletId(next::add);
+            current = next;
+        } finally {
+            building = null;
+        }
+        log.info("Wallet existence filter rebuilt for {} wallets ({} KB) in {} ms", count,
+                next.sizeInBytes() >>> 10, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Wallet existence filter rebuild failed, keeping the previous filter", e);
+        }
+    }
+}
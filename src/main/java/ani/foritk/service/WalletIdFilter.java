@@ -0,0 +1,64 @@
+package ani.foritk.service;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over wallet IDs. Adding is lock-free and may run concurrently with lookups; a lookup never
+ * misses an ID whose {@link #add} has returned. Both halves of the UUID are mixed before double hashing,
+ * so time-ordered IDs spread as well as random ones.
+ */
+final class WalletIdFilter {
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+
+    WalletIdFilter(long expectedWallets, double falsePositiveRate) {
+        final long n = Math.max(expectedWallets, 1);
+        final long optimalBits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        final int wordCount = Math.toIntExact(Math.max((optimalBits + 63) >>> 6, 1));
+        this.words = new AtomicLongArray(wordCount);
+        this.bits = (long) wordCount << 6;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+    }
+
+    void add(UUID id) {
+        final long h1 = mix(id.getMostSignificantBits());
+        final long h2 = mix(id.getLeastSignificantBits() ^ h1) | 1;
+        for (int i = 0; i < hashes; i++) {
+            final long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+            final int word = (int) (bit >>> 6);
+            final long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    boolean mightContain(UUID id) {
+        final long h1 = mix(id.getMostSignificantBits());
+        final long h2 = mix(id.getLeastSignificantBits() ^ h1) | 1;
+        for (int i = 0; i < hashes; i++) {
+            final long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long sizeInBytes() {
+        return bits >>> 3;
+    }
+
+    /** The 64-bit finalizer of MurmurHash3. */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
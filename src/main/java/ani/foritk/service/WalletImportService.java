@@ -0,0 +1,154 @@
+package ani.foritk.service;
+
+import ani.foritk.config.WalletImportProperties;
+import ani.foritk.config.WalletLedgerProperties;
+import ani.foritk.dto.CreateWalletDto;
+import ani.foritk.dto.WalletImportResultDto;
+import ani.foritk.entity.Money;
+import ani.foritk.exception.FeatureUnavailableException;
+import ani.foritk.exception.InvalidImportException;
+import ani.foritk.repository.WalletImportRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports wallets from a CSV ({@code valletId,initialBalance}, header optional) or NDJSON
+ * ({@code {"valletId":...,"initialBalance":...}}) stream. The input is read line by line and copied to the
+ * database in chunks of {@code wallet.import.chunk-size} rows, each committed on its own, so memory use is
+ * constant and an interrupted import can be repeated: IDs that already exist are counted as duplicates
+ * and keep their balance.
+ */
+@Slf4j
+@Service
+public class WalletImportService {
+    private final WalletImportRepository walletImportRepository;
+    private final WalletImportProperties walletImportProperties;
+    private final boolean recordOperations;
+    private final JournalWalletEngine journalWalletEngine;
+    private final WalletExistenceFilter walletExistenceFilter;
+    private final ObjectReader rowReader;
+
+    public WalletImportService(WalletImportRepository walletImportRepository,
+                               WalletImportProperties walletImportProperties,
+                               WalletLedgerProperties walletLedgerProperties,
+                               Optional<JournalWalletEngine> journalWalletEngine,
+                               Optional<WalletExistenceFilter> walletExistenceFilter,
+                               ObjectMapper objectMapper) {
+        this.walletImportRepository = walletImportRepository;
+        this.walletImportProperties = walletImportProperties;
+        this.recordOperations = walletLedgerProperties.enabled();
+        this.journalWalletEngine = journalWalletEngine.orElse(null);
+        this.walletExistenceFilter = walletExistenceFilter.orElse(null);
+        this.rowReader = objectMapper.readerFor(CreateWalletDto.class);
+    }
+
+    public WalletImportResultDto importWallets(InputStream input, Format format) {
+        if (journalWalletEngine != null) {
+            throw new FeatureUnavailableException("Wallets cannot be imported with the wallet journal");
+        }
+        final long startNanos = System.nanoTime();
+        final int chunkSize = walletImportProperties.chunkSize();
+        final List<UUID> chunkIds = new ArrayList<>(walletExistenceFilter != null ? chunkSize : 0);
+        long rows = 0;
+        long imported = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+             WalletImportRepository.ImportSession session = walletImportRepository.open(recordOperations)) {
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || format == Format.CSV && lineNumber == 1 && isCsvHeader(line)) {
+                    continue;
+                }
+                final CreateWalletDto row = parse(line, lineNumber, format);
+                session.add(row.valletId(), row.initialBalance());
+                if (walletExistenceFilter != null) {
+                    chunkIds.add(row.valletId());
+                }
+                if (++rows % chunkSize == 0) {
+                    imported += commit(session, chunkIds);
+                    log.info("Wallet import: {} rows read, {} imported, {} duplicates, {} rows/s",
+                            rows, imported, rows - imported, rate(rows, startNanos));
+                }
+            }
+            imported += commit(session, chunkIds);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Wallet import failed after " + imported + " wallets", e);
+        }
+
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        log.info("Wallet import finished: {} rows, {} imported, {} duplicates in {} ms",
+                rows, imported, rows - imported, elapsedMillis);
+        return new WalletImportResultDto(rows, imported, rows - imported, elapsedMillis);
+    }
+
+    private long commit(WalletImportRepository.ImportSession session, List<UUID> chunkIds) throws SQLException {
+        final long inserted = session.commit();
+        if (walletExistenceFilter != null) {
+            chunkIds.forEach(walletExistenceFilter::added);
+            chunkIds.clear();
+        }
+        return inserted;
+    }
+
+    private CreateWalletDto parse(String line, long lineNumber, Format format) {
+        final CreateWalletDto row;
+        try {
+            row = switch (format) {
+                case CSV -> parseCsv(line);
+                case NDJSON -> rowReader.readValue(line);
+            };
+        } catch (IllegalArgumentException | ArithmeticException | JsonProcessingException e) {
+            throw new InvalidImportException("Line " + lineNumber + " is invalid: " + e.getMessage());
+        }
+        if (row.valletId() == null || row.initialBalance() == null) {
+            throw new InvalidImportException("Line " + lineNumber + " must have a valletId and an initialBalance");
+        }
+        if (row.initialBalance().signum() < 0) {
+            throw new InvalidImportException("Line " + lineNumber + " has a negative initialBalance");
+        }
+        return row;
+    }
+
+    private static CreateWalletDto parseCsv(String line) {
+        final int comma = line.indexOf(',');
+        if (comma < 0) {
+            throw new IllegalArgumentException("expected valletId,initialBalance");
+        }
+        return new CreateWalletDto(
+                UUID.fromString(line.substring(0, comma).strip()),
+                Money.of(line.substring(comma + 1).strip())
+        );
+    }
+
+    private static boolean isCsvHeader(String line) {
+        return line.strip().toLowerCase().startsWith("valletid");
+    }
+
+    private static long rate(long rows, long startNanos) {
+        return rows * TimeUnit.SECONDS.toNanos(1) / Math.max(System.nanoTime() - startNanos, 1);
+    }
+
+    public enum Format {
+        CSV, NDJSON
+    }
+}
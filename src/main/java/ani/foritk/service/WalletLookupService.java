@@ -0,0 +1,76 @@
+package ani.foritk.service;
+
+import ani.foritk.dto.WalletLookupResultDto;
+import ani.foritk.repository.WalletJdbcRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Reads the balances of many wallets at once. IDs are queried in chunks of {@value CHUNK_SIZE} with one
+ * {@code id = ANY(?)} statement each, and every result is handed over as soon as it is read; with a single
+ * writer, IDs that the existence filter rules out are reported missing without being queried.
+ */
+@Service
+public class WalletLookupService {
+    private static final int CHUNK_SIZE = 1000;
+
+    private final WalletJdbcRepository walletJdbcRepository;
+    private final JournalWalletEngine journalWalletEngine;
+    private final WalletExistenceFilter walletExistenceFilter;
+
+    public WalletLookupService(WalletJdbcRepository walletJdbcRepository,
+                               Optional<JournalWalletEngine> journalWalletEngine,
+                               Optional<WalletExistenceFilter> walletExistenceFilter) {
+        this.walletJdbcRepository = walletJdbcRepository;
+        this.journalWalletEngine = journalWalletEngine.orElse(null);
+        // without a single writer every miss is looked up anyway, which the chunk query does at once
+        this.walletExistenceFilter = walletExistenceFilter.filter(WalletExistenceFilter::isSingleWriter).orElse(null);
+    }
+
+    /**
+     * Passes one result per distinct ID to {@code consumer}: found wallets in the order the database
+     * returns them, followed by the missing IDs of the same chunk.
+     */
+    public void lookup(Collection<UUID> ids, Consumer<WalletLookupResultDto> consumer) {
+        final Set<UUID> distinct = new LinkedHashSet<>(ids);
+        if (journalWalletEngine != null) {
+            distinct.forEach(id -> consumer.accept(journalWalletEngine.findWallet(id)
+                    .map(wallet -> WalletLookupResultDto.found(id, wallet.getBalance()))
+                    .orElseGet(() -> WalletLookupResultDto.missing(id))));
+            return;
+        }
+
+        final List<UUID> chunk = new ArrayList<>(Math.min(distinct.size(), CHUNK_SIZE));
+        for (UUID id : distinct) {
+            if (walletExistenceFilter != null && !walletExistenceFilter.mightExist(id)) {
+                consumer.accept(WalletLookupResultDto.missing(id));
+                continue;
+            }
+            chunk.add(id);
+            if (chunk.size() == CHUNK_SIZE) {
+                lookupChunk(chunk, consumer);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            lookupChunk(chunk, consumer);
+        }
+    }
+
+    private void lookupChunk(List<UUID> chunk, Consumer<WalletLookupResultDto> consumer) {
+        final Set<UUID> missing = new LinkedHashSet<>(chunk);
+        walletJdbcRepository.forEachBalance(chunk, (id, balance) -> {
+            missing.remove(id);
+            consumer.accept(WalletLookupResultDto.found(id, balance));
+        });
+        missing.forEach(id -> consumer.accept(WalletLookupResultDto.missing(id)));
+    }
+}
@@ -0,0 +1,127 @@
+package ani.foritk.service;
+
+import ani.foritk.config.WalletLedgerProperties;
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.dto.WalletOperationDto;
+import ani.foritk.entity.Wallet;
+import ani.foritk.repository.WalletOperationRecord;
+import ani.foritk.repository.WalletOperationRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Records every applied deposit and withdrawal in the {@code wallet_operation} table, in the transaction
+ * that changes the balance, and exports a wallet's history. The table is partitioned by month; partitions
+ * for the current and the next months are created on startup and checked daily.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "wallet.ledger", name = "enabled", havingValue = "true")
+public class WalletOperationLedger {
+    private final WalletOperationRepository walletOperationRepository;
+    private final WalletLedgerProperties walletLedgerProperties;
+    private final ScheduledExecutorService partitionExecutor = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "wallet-ledger-partitions"));
+
+    public WalletOperationLedger(WalletOperationRepository walletOperationRepository,
+                                 WalletLedgerProperties walletLedgerProperties) {
+        this.walletOperationRepository = walletOperationRepository;
+        this.walletLedgerProperties = walletLedgerProperties;
+    }
+
+    /**
+     * Creates the partitions before the first write: a row that lands in the default partition would
+     * make creating the partition for its month fail later.
+     */
+    @PostConstruct
+    public void start() {
+        createPartitionsQuietly();
+        partitionExecutor.scheduleWithFixedDelay(this::createPartitionsQuietly, 1, 1, TimeUnit.DAYS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        partitionExecutor.shutdownNow();
+    }
+
+    /**
+     * Returns the callback that records the update inside its transaction.
+     */
+    public Consumer<Wallet> recorder(UpdateWalletDto updateWalletDto) {
+        return wallet -> walletOperationRepository.insert(new WalletOperationRecord(
+                wallet.getId(),
+                updateWalletDto.operationType(),
+                updateWalletDto.amount(),
+                wallet.getBalance()
+        ));
+    }
+
+    /**
+     * Records several operations of the current transaction with one batched insert.
+     */
+    public void recordAll(List<WalletOperationRecord> records) {
+        if (!records.isEmpty()) {
+            walletOperationRepository.insertAll(records);
+        }
+    }
+
+    /**
+     * Passes the wallet's operations with an ID above {@code afterId} to {@code consumer} in ID order,
+     * at most {@code limit} of them. Each page is read by a short transaction of its own and continues
+     * after the last ID of the previous one, so an export of any size neither fills the heap nor holds
+     * a snapshot open for its whole duration. A page only returns IDs below which nothing can still be
+     * committed, so an export resumed after the last ID it returned never skips an operation; operations
+     * still being committed are left to the next export.
+     */
+    public void export(UUID walletId, long afterId, long limit, Consumer<WalletOperationDto> consumer) {
+        final int pageSize = walletLedgerProperties.exportPageSize();
+        final long[] last = {afterId};
+        final long[] exported = {0};
+        while (exported[0] < limit) {
+            final long pageStart = exported[0];
+            final WalletOperationRepository.Horizon horizon = walletOperationRepository.horizon(walletId);
+            final boolean settled = walletOperationRepository.forEachOperation(walletId, last[0], horizon,
+                    (int) Math.min(pageSize, limit - pageStart), walletLedgerProperties.exportSettleTimeout(),
+                    operation -> {
+                        consumer.accept(operation);
+                        last[0] = operation.id();
+                        exported[0]++;
+                    });
+            if (!settled) {
+                log.warn("Export of wallet {} ended after operation {}: transactions did not finish within {}",
+                        walletId, last[0], walletLedgerProperties.exportSettleTimeout());
+                return;
+            }
+            if (exported[0] - pageStart < pageSize) {
+                return;
+            }
+        }
+    }
+
+    private void createPartitions() {
+        final YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        for (int i = 0; i <= walletLedgerProperties.partitionsAhead(); i++) {
+            walletOperationRepository.createPartition(current.plusMonths(i));
+        }
+    }
+
+    private void createPartitionsQuietly() {
+        try {
+            createPartitions();
+        } catch (RuntimeException e) {
+            log.warn("Failed to create wallet operation partitions", e);
+        }
+    }
+}
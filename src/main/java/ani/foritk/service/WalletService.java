@@ -1,56 +1,235 @@
 package ani.foritk.service;
 
+import ani.foritk.dto.CreateWalletDto;
 import ani.foritk.dto.OperationType;
 import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Money;
 import ani.foritk.entity.Wallet;
-import ani.foritk.exception.InsufficientFundsException;
+import ani.foritk.exception.FeatureUnavailableException;
+import ani.foritk.exception.WalletAlreadyExistsException;
+import ani.foritk.exception.WalletNotFoundException;
 import ani.foritk.repository.WalletRepository;
-import jakarta.persistence.EntityNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 
-import java.math.BigDecimal;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
 public class WalletService {
     private final WalletRepository walletRepository;
+    private final BalanceUpdateStrategy balanceUpdateStrategy;
+    private final TransactionOperations transactionOperations;
+    private final WalletUpdateCombiner walletUpdateCombiner;
+    private final JournalWalletEngine journalWalletEngine;
+    private final WalletCache walletCache;
+    private final IdempotencyService idempotencyService;
+    private final WalletBulkhead walletBulkhead;
+    private final HotWalletTracker hotWalletTracker;
+    private final WalletExistenceFilter walletExistenceFilter;
+    private final WalletOperationLedger walletOperationLedger;
+    private final ShardedWalletEngine shardedWalletEngine;
+    private final BalanceEventOutbox balanceEventOutbox;
 
-    public WalletService(WalletRepository walletRepository) {
+    public WalletService(WalletRepository walletRepository,
+                         BalanceUpdateStrategy balanceUpdateStrategy,
+                         TransactionOperations transactionOperations,
+                         Optional<WalletUpdateCombiner> walletUpdateCombiner,
+                         Optional<JournalWalletEngine> journalWalletEngine,
+                         Optional<WalletCache> walletCache,
+                         Optional<IdempotencyService> idempotencyService,
+                         Optional<WalletBulkhead> walletBulkhead,
+                         Optional<HotWalletTracker> hotWalletTracker,
+                         Optional<WalletExistenceFilter> walletExistenceFilter,
+                         Optional<WalletOperationLedger> walletOperationLedger,
+                         Optional<ShardedWalletEngine> shardedWalletEngine,
+                         Optional<BalanceEventOutbox> balanceEventOutbox) {
         this.walletRepository = walletRepository;
+        this.balanceUpdateStrategy = balanceUpdateStrategy;
+        this.transactionOperations = transactionOperations;
+        this.walletUpdateCombiner = walletUpdateCombiner.orElse(null);
+        this.journalWalletEngine = journalWalletEngine.orElse(null);
+        this.walletCache = walletCache.orElse(null);
+        this.idempotencyService = idempotencyService.orElse(null);
+        this.walletBulkhead = walletBulkhead.orElse(null);
+        this.hotWalletTracker = hotWalletTracker.orElse(null);
+        this.walletExistenceFilter = walletExistenceFilter.orElse(null);
+        this.walletOperationLedger = walletOperationLedger.orElse(null);
+        this.shardedWalletEngine = shardedWalletEngine.orElse(null);
+        this.balanceEventOutbox = balanceEventOutbox.orElse(null);
+        if (this.journalWalletEngine != null && this.idempotencyService != null) {
+            // the journal applies updates outside of database transactions, so keys cannot commit with them
+            throw new IllegalStateException("wallet.idempotency.enabled cannot be combined with wallet.journal.enabled");
+        }
     }
 
-    @Transactional(readOnly = true)
     public Wallet getWallet(UUID id) {
-        return walletRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Wallet with ID " + id + " is not found"));
+        rejectUnknown(id);
+        if (journalWalletEngine != null) {
+            return journalWalletEngine.getWallet(id);
+        }
+        if (isSharded(id)) {
+            return shardedWalletEngine.getWallet(id);
+        }
+        if (walletCache != null) {
+            return walletCache.get(id, this::loadWallet);
+        }
+        return loadWallet(id);
+    }
 
+    /**
+     * Reads the latest committed state. The read runs in a read-write transaction, so it is served by the
+     * primary even when read-only transactions go to replicas.
+     */
+    public Wallet getWalletStrict(UUID id) {
+        rejectUnknown(id);
+        if (journalWalletEngine != null) {
+            return journalWalletEngine.getWallet(id);
+        }
+        if (isSharded(id)) {
+            return shardedWalletEngine.getWallet(id);
+        }
+        return transactionOperations.execute(status -> loadWallet(id));
     }
 
-    @Transactional
-    public Wallet updateBalance(UpdateWalletDto updateWalletDto) {
-        final UUID id = updateWalletDto.valletId();
-        final Wallet walletToUpdate = walletRepository.findByIdAndLock(id)
-                .orElseThrow(() -> new EntityNotFoundException("Wallet with ID " + id + " is not found"));
-
-        final OperationType operationType = updateWalletDto.operationType();
-        final BigDecimal currentBalance = walletToUpdate.getBalance();
-        final BigDecimal amount = updateWalletDto.amount();
-
-        switch (operationType) {
-            case DEPOSIT -> {
-                final BigDecimal newBalance = currentBalance.add(amount);
-                walletToUpdate.setBalance(newBalance);
+    /**
+     * Creates a wallet with the given or a random ID. A positive initial balance is recorded in the
+     * operation ledger and the event outbox as a deposit.
+     */
+    public Wallet createWallet(CreateWalletDto createWalletDto) {
+        if (journalWalletEngine != null) {
+            throw new FeatureUnavailableException("Wallets cannot be created with the wallet journal");
+        }
+        final UUID id = createWalletDto.valletId() != null ? createWalletDto.valletId() : UUID.randomUUID();
+        final Money balance = createWalletDto.initialBalance() != null ? createWalletDto.initialBalance() : Money.ZERO;
+        final Wallet wallet = transactionOperations.execute(status -> {
+            if (walletRepository.insertIfAbsent(id, balance.minorUnits()) == 0) {
+                throw new WalletAlreadyExistsException(id);
             }
-            case WITHDRAW -> {
-                if(currentBalance.compareTo(amount) < 0){
-                   throw new InsufficientFundsException("Wallet with valletId " + id + " cannot withdraw " + amount);
-                }
-                final BigDecimal newBalance = currentBalance.subtract(amount);
-                walletToUpdate.setBalance(newBalance);
+            final Wallet created = new Wallet();
+            created.setId(id);
+            created.setBalance(balance);
+            created.setVersion(0L);
+            if (balance.signum() > 0) {
+                recorder(new UpdateWalletDto(id, OperationType.DEPOSIT, balance)).accept(created);
             }
+            return created;
+        });
+        if (walletExistenceFilter != null) {
+            walletExistenceFilter.added(id);
+        }
+        return wallet;
+    }
+
+    public Wallet updateBalance(UpdateWalletDto updateWalletDto) {
+        final Wallet wallet = admit(updateWalletDto.valletId(), () -> applyUpdate(updateWalletDto));
+        if (walletCache != null) {
+            walletCache.committed(wallet);
+        }
+        return wallet;
+    }
+
+    /**
+     * Applies the update at most once per idempotency key. Idempotent updates bypass write combining,
+     * because the key has to be recorded in a transaction of its own.
+     */
+    public Wallet updateBalance(UpdateWalletDto updateWalletDto, String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyService == null) {
+            return updateBalance(updateWalletDto);
+        }
+        final Optional<Wallet> replayed = idempotencyService.replay(idempotencyKey, updateWalletDto);
+        if (replayed.isPresent()) {
+            return replayed.get();
+        }
+
+        final Wallet wallet;
+        try {
+            final Consumer<Wallet> recorder = idempotencyService.recorder(idempotencyKey, updateWalletDto);
+            wallet = admit(updateWalletDto.valletId(), () -> updateInTransaction(
+                    updateWalletDto, recorder(updateWalletDto).andThen(recorder)));
+        } catch (IdempotencyService.DuplicateKeyException e) {
+            return idempotencyService.replay(idempotencyKey, updateWalletDto).orElseThrow(() -> e);
+        }
+        idempotencyService.committed(idempotencyKey, updateWalletDto, wallet);
+        if (walletCache != null) {
+            walletCache.committed(wallet);
+        }
+        return wallet;
+    }
+
+    private Wallet admit(UUID walletId, Supplier<Wallet> update) {
+        rejectUnknown(walletId);
+        if (hotWalletTracker != null) {
+            hotWalletTracker.record(walletId);
+        }
+        if (walletBulkhead != null) {
+            return walletBulkhead.execute(walletId, update);
+        }
+        return update.get();
+    }
+
+    private Wallet applyUpdate(UpdateWalletDto updateWalletDto) {
+        if (journalWalletEngine != null) {
+            return journalWalletEngine.updateBalance(updateWalletDto);
+        }
+        if (walletUpdateCombiner != null && !isSharded(updateWalletDto.valletId())) {
+            return walletUpdateCombiner.submit(updateWalletDto);
+        }
+        return updateInTransaction(updateWalletDto, recorder(updateWalletDto));
+    }
+
+    /**
+     * Returns the callback that records the update in the operation ledger and the event outbox inside
+     * its transaction. The update of a sharded wallet is recorded without a balance: the total read after
+     * it also contains concurrent updates of other shards.
+     */
+    private Consumer<Wallet> recorder(UpdateWalletDto updateWalletDto) {
+        Consumer<Wallet> recorder = wallet -> {};
+        if (walletOperationLedger != null) {
+            recorder = recorder.andThen(walletOperationLedger.recorder(updateWalletDto));
+        }
+        if (balanceEventOutbox != null) {
+            recorder = recorder.andThen(balanceEventOutbox.recorder(updateWalletDto));
+        }
+        if (isSharded(updateWalletDto.valletId())) {
+            final Consumer<Wallet> withBalance = recorder;
+            recorder = wallet -> withBalance.accept(withoutBalance(wallet));
         }
+        return recorder;
+    }
+
+    private static Wallet withoutBalance(Wallet wallet) {
+        final Wallet recorded = new Wallet();
+        recorded.setId(wallet.getId());
+        recorded.setVersion(wallet.getVersion());
+        return recorded;
+    }
+
+    /**
+     * Sharded wallets bypass the balance cache and write combining: their updates do not contend on
+     * one row, and their version does not change on every update.
+     */
+    private Wallet updateInTransaction(UpdateWalletDto updateWalletDto, Consumer<Wallet> inTransaction) {
+        if (isSharded(updateWalletDto.valletId())) {
+            return shardedWalletEngine.updateBalance(updateWalletDto, inTransaction);
+        }
+        return balanceUpdateStrategy.updateBalance(updateWalletDto, inTransaction);
+    }
+
+    private boolean isSharded(UUID id) {
+        return shardedWalletEngine != null && shardedWalletEngine.isSharded(id);
+    }
+
+    private void rejectUnknown(UUID id) {
+        if (walletExistenceFilter != null && !walletExistenceFilter.mightExist(id)) {
+            throw new WalletNotFoundException(id);
+        }
+    }
 
-        return walletRepository.save(walletToUpdate);
+    private Wallet loadWallet(UUID id) {
+        return walletRepository.findTotalById(id)
+                .orElseThrow(() -> new WalletNotFoundException(id));
     }
 }
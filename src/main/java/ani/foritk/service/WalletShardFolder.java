@@ -0,0 +1,43 @@
+package ani.foritk.service;
+
+import ani.foritk.config.ShardingProperties;
+import ani.foritk.repository.WalletShardRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Folds the shards of wallets that are no longer configured for sharding, or of every wallet when
+ * sharding is disabled, back into the wallet row on startup. Only {@link ShardedWalletEngine} updates
+ * shards, so funds left in them would otherwise be invisible to updates of the wallet row.
+ */
+@Slf4j
+@Component
+@DependsOnDatabaseInitialization
+public class WalletShardFolder {
+    private final WalletShardRepository walletShardRepository;
+    private final TransactionOperations transactionOperations;
+    private final ShardingProperties shardingProperties;
+
+    public WalletShardFolder(WalletShardRepository walletShardRepository,
+                             TransactionOperations transactionOperations,
+                             ShardingProperties shardingProperties) {
+        this.walletShardRepository = walletShardRepository;
+        this.transactionOperations = transactionOperations;
+        this.shardingProperties = shardingProperties;
+    }
+
+    @PostConstruct
+    public void start() {
+        final List<UUID> sharded = shardingProperties.enabled() ? shardingProperties.wallets() : List.of();
+        final Integer folded = transactionOperations.execute(status -> walletShardRepository.foldAllExcept(sharded));
+        if (folded != null && folded > 0) {
+            log.info("Folded the shards of {} wallets that are no longer sharded", folded);
+        }
+    }
+}
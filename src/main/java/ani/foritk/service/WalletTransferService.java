@@ -0,0 +1,133 @@
+package ani.foritk.service;
+
+import ani.foritk.config.TransferProperties;
+import ani.foritk.dto.OperationType;
+import ani.foritk.dto.TransferWalletDto;
+import ani.foritk.entity.Money;
+import ani.foritk.entity.Wallet;
+import ani.foritk.exception.ConcurrentUpdateException;
+import ani.foritk.exception.FeatureUnavailableException;
+import ani.foritk.exception.WalletNotFoundException;
+import ani.foritk.repository.WalletJdbcRepository;
+import ani.foritk.repository.WalletOperationRecord;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Moves funds between two wallets in one transaction. Both rows are locked with a single statement in
+ * id order, the same order batch updates use, so opposite transfers queue behind each other instead of
+ * deadlocking; deadlock and serialization failures raised by the database anyway are retried. The
+ * shards of a sharded wallet are locked after both rows, and its new balance is spread over them.
+ */
+@Service
+public class WalletTransferService {
+    private final WalletJdbcRepository walletJdbcRepository;
+    private final TransactionOperations transactionOperations;
+    private final TransferProperties transferProperties;
+    private final WalletCache walletCache;
+    private final JournalWalletEngine journalWalletEngine;
+    private final WalletOperationLedger walletOperationLedger;
+    private final BalanceEventOutbox balanceEventOutbox;
+    private final ShardedWalletEngine shardedWalletEngine;
+
+    public WalletTransferService(WalletJdbcRepository walletJdbcRepository,
+                                 TransactionOperations transactionOperations,
+                                 TransferProperties transferProperties,
+                                 Optional<WalletCache> walletCache,
+                                 Optional<JournalWalletEngine> journalWalletEngine,
+                                 Optional<WalletOperationLedger> walletOperationLedger,
+                                 Optional<BalanceEventOutbox> balanceEventOutbox,
+                                 Optional<ShardedWalletEngine> shardedWalletEngine) {
+        this.walletJdbcRepository = walletJdbcRepository;
+        this.transactionOperations = transactionOperations;
+        this.transferProperties = transferProperties;
+        this.walletCache = walletCache.orElse(null);
+        this.journalWalletEngine = journalWalletEngine.orElse(null);
+        this.walletOperationLedger = walletOperationLedger.orElse(null);
+        this.balanceEventOutbox = balanceEventOutbox.orElse(null);
+        this.shardedWalletEngine = shardedWalletEngine.orElse(null);
+    }
+
+    public List<Wallet> transfer(TransferWalletDto transferWalletDto) {
+        if (journalWalletEngine != null) {
+            throw new FeatureUnavailableException("Transfers are not available with the wallet journal");
+        }
+        final List<Wallet> wallets = Retries.withBackoff(
+                () -> transactionOperations.execute(status -> apply(transferWalletDto)),
+                PessimisticLockingFailureException.class,
+                transferProperties.maxAttempts(),
+                transferProperties.initialBackoff(),
+                transferProperties.maxBackoff(),
+                e -> new ConcurrentUpdateException(
+                        "Transfer from wallet " + transferWalletDto.fromValletId() + " to wallet "
+                                + transferWalletDto.toValletId() + " failed after "
+                                + transferProperties.maxAttempts() + " attempts", e)
+        );
+        if (walletCache != null) {
+            wallets.stream().filter(wallet -> !isSharded(wallet.getId())).forEach(walletCache::committed);
+        }
+        return wallets;
+    }
+
+    private List<Wallet> apply(TransferWalletDto transferWalletDto) {
+        final UUID fromId = transferWalletDto.fromValletId();
+        final UUID toId = transferWalletDto.toValletId();
+        final Money amount = transferWalletDto.amount();
+        final Map<UUID, Wallet> rows = walletJdbcRepository.lockAll(Set.of(fromId, toId));
+        final Map<UUID, Wallet> locked = shardedWalletEngine != null ? shardedWalletEngine.lockTotals(rows) : rows;
+
+        final Wallet from = updated(locked, fromId, OperationType.WITHDRAW, amount);
+        final Wallet to = updated(locked, toId, OperationType.DEPOSIT, amount);
+        final List<Wallet> wallets = List.of(from, to);
+        final List<Wallet> unsharded = new ArrayList<>(wallets.size());
+        for (Wallet wallet : wallets) {
+            if (isSharded(wallet.getId())) {
+                shardedWalletEngine.setBalance(wallet.getId(), wallet.getBalance());
+            } else {
+                unsharded.add(wallet);
+            }
+        }
+        if (!unsharded.isEmpty()) {
+            walletJdbcRepository.updateBalances(unsharded, unsharded.size());
+        }
+        final List<WalletOperationRecord> operations = List.of(
+                new WalletOperationRecord(fromId, OperationType.WITHDRAW, amount, recordedBalance(from)),
+                new WalletOperationRecord(toId, OperationType.DEPOSIT, amount, recordedBalance(to))
+        );
+        if (walletOperationLedger != null) {
+            walletOperationLedger.recordAll(operations);
+        }
+        if (balanceEventOutbox != null) {
+            balanceEventOutbox.recordAll(operations);
+        }
+        return wallets;
+    }
+
+    private Money recordedBalance(Wallet wallet) {
+        return isSharded(wallet.getId()) ? null : wallet.getBalance();
+    }
+
+    private boolean isSharded(UUID id) {
+        return shardedWalletEngine != null && shardedWalletEngine.isSharded(id);
+    }
+
+    private static Wallet updated(Map<UUID, Wallet> locked, UUID id, OperationType operationType, Money amount) {
+        final Wallet current = locked.get(id);
+        if (current == null) {
+            throw new WalletNotFoundException(id);
+        }
+        final Wallet wallet = new Wallet();
+        wallet.setId(id);
+        wallet.setBalance(BalanceOperations.apply(id, current.getBalance(), operationType, amount));
+        wallet.setVersion(current.getVersion() + 1);
+        return wallet;
+    }
+}
@@ -0,0 +1,168 @@
+package ani.foritk.service;
+
+import ani.foritk.config.CombiningProperties;
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Money;
+import ani.foritk.entity.Wallet;
+import ani.foritk.exception.InsufficientFundsException;
+import ani.foritk.exception.WalletNotFoundException;
+import ani.foritk.repository.WalletOperationRecord;
+import ani.foritk.repository.WalletRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Queues concurrent updates of the same wallet and applies them as one batch under a single row lock.
+ * The first caller for an idle wallet becomes the leader: it applies whatever is queued at that moment
+ * in one transaction and then hands leadership over to the oldest caller still waiting, so nobody
+ * applies other callers' work for longer than one batch.
+ */
+@Component
+@ConditionalOnProperty(prefix = "wallet.combining", name = "enabled", havingValue = "true")
+public class WalletUpdateCombiner {
+    private final WalletRepository walletRepository;
+    private final TransactionOperations transactionOperations;
+    private final WalletOperationLedger walletOperationLedger;
+    private final BalanceEventOutbox balanceEventOutbox;
+    private final int maxBatchSize;
+    private final ConcurrentHashMap<UUID, ArrayDeque<PendingUpdate>> lanes = new ConcurrentHashMap<>();
+
+    public WalletUpdateCombiner(WalletRepository walletRepository,
+                                TransactionOperations transactionOperations,
+                                CombiningProperties combiningProperties,
+                                Optional<WalletOperationLedger> walletOperationLedger,
+                                Optional<BalanceEventOutbox> balanceEventOutbox) {
+        this.walletRepository = walletRepository;
+        this.transactionOperations = transactionOperations;
+        this.walletOperationLedger = walletOperationLedger.orElse(null);
+        this.balanceEventOutbox = balanceEventOutbox.orElse(null);
+        this.maxBatchSize = combiningProperties.maxBatchSize();
+    }
+
+    public Wallet submit(UpdateWalletDto updateWalletDto) {
+        final UUID id = updateWalletDto.valletId();
+        final PendingUpdate update = new PendingUpdate(updateWalletDto);
+        lanes.compute(id, (key, lane) -> {
+            if (lane == null) {
+                lane = new ArrayDeque<>();
+                update.leadership.complete(null);
+            }
+            lane.add(update);
+            return lane;
+        });
+
+        while (!update.result.isDone()) {
+            CompletableFuture.anyOf(update.result, update.leadership).join();
+            if (!update.result.isDone()) {
+                drain(id);
+            }
+        }
+        try {
+            return update.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void drain(UUID id) {
+        final List<PendingUpdate> batch = new ArrayList<>();
+        lanes.computeIfPresent(id, (key, lane) -> {
+            while (batch.size() < maxBatchSize && !lane.isEmpty()) {
+                batch.add(lane.poll());
+            }
+            return lane;
+        });
+        try {
+            applyBatch(id, batch);
+        } finally {
+            handOff(id);
+        }
+    }
+
+    private void applyBatch(UUID id, List<PendingUpdate> batch) {
+        try {
+            transactionOperations.executeWithoutResult(status -> {
+                final Wallet wallet = walletRepository.findByIdAndLock(id)
+                        .orElseThrow(() -> new WalletNotFoundException(id));
+
+                final Long version = wallet.getVersion() == null ? null : wallet.getVersion() + 1;
+                Money balance = wallet.getBalance();
+                final List<WalletOperationRecord> operations = new ArrayList<>(batch.size());
+                for (PendingUpdate update : batch) {
+                    final UpdateWalletDto request = update.request;
+                    try {
+                        balance = BalanceOperations.apply(id, balance, request.operationType(), request.amount());
+                        update.applied = snapshot(id, balance, version);
+                        operations.add(new WalletOperationRecord(id, request.operationType(), request.amount(), balance));
+                    } catch (InsufficientFundsException e) {
+                        update.rejected = e;
+                    }
+                }
+                wallet.setBalance(balance);
+                walletRepository.save(wallet);
+                if (walletOperationLedger != null) {
+                    walletOperationLedger.recordAll(operations);
+                }
+                if (balanceEventOutbox != null) {
+                    balanceEventOutbox.recordAll(operations);
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            batch.forEach(update -> update.result.completeExceptionally(e));
+            return;
+        }
+        batch.forEach(PendingUpdate::complete);
+    }
+
+    private void handOff(UUID id) {
+        final PendingUpdate[] next = new PendingUpdate[1];
+        lanes.computeIfPresent(id, (key, lane) -> {
+            next[0] = lane.peek();
+            return next[0] == null ? null : lane;
+        });
+        if (next[0] != null) {
+            next[0].leadership.complete(null);
+        }
+    }
+
+    private static Wallet snapshot(UUID id, Money balance, Long version) {
+        final Wallet wallet = new Wallet();
+        wallet.setId(id);
+        wallet.setBalance(balance);
+        wallet.setVersion(version);
+        return wallet;
+    }
+
+    private static final class PendingUpdate {
+        private final UpdateWalletDto request;
+        private final CompletableFuture<Wallet> result = new CompletableFuture<>();
+        private final CompletableFuture<Void> leadership = new CompletableFuture<>();
+        private Wallet applied;
+        private RuntimeException rejected;
+
+        private PendingUpdate(UpdateWalletDto request) {
+            this.request = request;
+        }
+
+        private void complete() {
+            if (rejected != null) {
+                result.completeExceptionally(rejected);
+            } else {
+                result.complete(applied);
+            }
+        }
+    }
+}
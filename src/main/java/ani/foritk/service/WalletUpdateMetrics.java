@@ -0,0 +1,114 @@
+package ani.foritk.service;
+
+import ani.foritk.dto.OperationType;
+import ani.foritk.exception.InsufficientFundsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the phases of a locking balance update as {@code wallet.update.phase}, tagged by phase,
+ * operation and outcome. The timers are registered up front, so recording does not look meters up.
+ */
+@Component
+@ConditionalOnProperty(prefix = "wallet.metrics", name = "enabled", havingValue = "true")
+public class WalletUpdateMetrics {
+    private final Timer[][][] timers =
+            new Timer[Phase.values().length][OperationType.values().length][Outcome.values().length];
+
+    public WalletUpdateMetrics(MeterRegistry meterRegistry) {
+        for (Phase phase : Phase.values()) {
+            for (OperationType operationType : OperationType.values()) {
+                for (Outcome outcome : Outcome.values()) {
+                    timers[phase.ordinal()][operationType.ordinal()][outcome.ordinal()] = Timer
+                            .builder("wallet.update.phase")
+                            .description("Time a balance update spends in each phase")
+                            .tag("phase", phase.name().toLowerCase(Locale.ROOT))
+                            .tag("operation", operationType.name())
+                            .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                            .register(meterRegistry);
+                }
+            }
+        }
+    }
+
+    Phases start(OperationType operationType) {
+        return new Phases(this, operationType);
+    }
+
+    enum Phase {
+        /** Beginning the transaction, which checks a connection out of the pool. */
+        CONNECTION,
+        /** SELECT ... FOR UPDATE, including the wait for the row lock. */
+        LOCK,
+        /** Balance arithmetic and work done in the transaction; the UPDATE itself is flushed on commit. */
+        LOGIC,
+        /** Flush and commit. */
+        COMMIT
+    }
+
+    enum Outcome {
+        OK, INSUFFICIENT_FUNDS, NOT_FOUND, ERROR
+    }
+
+    /**
+     * Durations of one update. The phases run in order; a failure is charged to the phase in progress.
+     */
+    static final class Phases {
+        static final Phases NONE = new Phases(null, null);
+
+        private final WalletUpdateMetrics metrics;
+        private final OperationType operationType;
+        private final long[] durations = new long[Phase.values().length];
+        private long last;
+        private int next;
+
+        private Phases(WalletUpdateMetrics metrics, OperationType operationType) {
+            this.metrics = metrics;
+            this.operationType = operationType;
+            this.last = metrics == null ? 0 : System.nanoTime();
+        }
+
+        void end(Phase phase) {
+            if (metrics == null) {
+                return;
+            }
+            final long now = System.nanoTime();
+            durations[phase.ordinal()] = now - last;
+            last = now;
+            next = phase.ordinal() + 1;
+        }
+
+        void succeeded() {
+            record(Outcome.OK);
+        }
+
+        void failed(RuntimeException e) {
+            if (metrics == null) {
+                return;
+            }
+            if (next < durations.length) {
+                durations[next] = System.nanoTime() - last;
+                next++;
+            }
+            record(e instanceof InsufficientFundsException ? Outcome.INSUFFICIENT_FUNDS
+                    : e instanceof EntityNotFoundException ? Outcome.NOT_FOUND
+                    : Outcome.ERROR);
+        }
+
+        private void record(Outcome outcome) {
+            if (metrics == null) {
+                return;
+            }
+            for (int phase = 0; phase < next; phase++) {
+                metrics.timers[phase][operationType.ordinal()][outcome.ordinal()]
+                        .record(durations[phase], TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package ani.foritk.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final Connection primaryConnection = mock();
+    private final DataSource primary = mock();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void getConnection_WhenReplicasAreNotCheckedYet_ThenUsePrimary() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        ReplicaRoutingDataSource dataSource = routing(Map.of("replica-1", replica(mock(), true, false, 0)));
+
+        assertSame(primaryConnection, dataSource.getConnection());
+    }
+
+    @Test
+    void getConnection_WhenOneReplicaLags_ThenUseTheOtherOne() throws SQLException {
+        Connection current = mock();
+        Connection lagging = mock();
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", replica(current, true, true, 0));
+        replicas.put("replica-2", replica(lagging, true, false, 5000));
+        ReplicaRoutingDataSource dataSource = routing(replicas);
+        primaryPosition("0/16B3740");
+
+        dataSource.checkLag();
+
+        assertSame(current, dataSource.getConnection());
+        assertSame(current, dataSource.getConnection());
+    }
+
+    @Test
+    void getConnection_WhenReplicaIsNotInRecoveryOrUnreachable_ThenUsePrimary() throws SQLException {
+        DataSource unreachable = mock();
+        when(unreachable.getConnection()).thenThrow(new SQLTransientConnectionException("refused"));
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", replica(mock(), false, true, 0));
+        replicas.put("replica-2", unreachable);
+        ReplicaRoutingDataSource dataSource = routing(replicas);
+        primaryPosition("0/16B3740");
+
+        dataSource.checkLag();
+
+        Connection fallback = mock();
+        when(primary.getConnection()).thenReturn(fallback);
+        assertSame(fallback, dataSource.getConnection());
+    }
+
+    private ReplicaRoutingDataSource routing(Map<String, DataSource> replicas) {
+        return new ReplicaRoutingDataSource(primary, replicas,
+                new ReplicaProperties(true, List.of(), null, null, 10, Duration.ofSeconds(1), Duration.ofSeconds(1)),
+                meterRegistry);
+    }
+
+    private void primaryPosition(String position) throws SQLException {
+        ResultSet rs = mock();
+        when(rs.next()).thenReturn(true);
+        when(rs.getString(1)).thenReturn(position);
+        PreparedStatement statement = mock();
+        when(statement.executeQuery()).thenReturn(rs);
+        when(primaryConnection.prepareStatement(anyString())).thenReturn(statement);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+    }
+
+    private static DataSource replica(Connection connection, boolean inRecovery, boolean caughtUp, long lagMillis)
+            throws SQLException {
+        ResultSet rs = mock();
+        when(rs.next()).thenReturn(true);
+        when(rs.getBoolean(1)).thenReturn(inRecovery);
+        when(rs.getBoolean(2)).thenReturn(caughtUp);
+        when(rs.getLong(3)).thenReturn(lagMillis);
+        PreparedStatement statement = mock();
+        when(statement.executeQuery()).thenReturn(rs);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        DataSource dataSource = mock();
+        when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+}
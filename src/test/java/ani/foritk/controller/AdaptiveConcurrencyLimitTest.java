@@ -0,0 +1,72 @@
+package ani.foritk.controller;
+
+import ani.foritk.config.ConcurrencyLimitProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimitTest {
+    private static final long FAST = Duration.ofMillis(2).toNanos();
+    private static final long SLOW = Duration.ofMillis(20).toNanos();
+
+    @Test
+    void tryAcquire_WhenLimitIsReached_ThenRejectUntilReleased() {
+        AdaptiveConcurrencyLimit limit = limit(4, 4, 100);
+
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(i, limit.tryAcquire());
+        }
+        assertEquals(-1, limit.tryAcquire());
+
+        limit.release(FAST, 4);
+
+        assertEquals(4, limit.tryAcquire());
+    }
+
+    @Test
+    void release_WhenLatencyIsSteadyAndLimitIsUsed_ThenGrowLimit() {
+        AdaptiveConcurrencyLimit limit = limit(20, 4, 100);
+
+        samples(limit, 50, FAST);
+
+        assertTrue(limit.limit() > 20, "limit " + limit.limit());
+    }
+
+    @Test
+    void release_WhenLatencyRises_ThenShrinkLimit() {
+        AdaptiveConcurrencyLimit limit = limit(40, 4, 40);
+        samples(limit, 100, FAST);
+        assertEquals(40, limit.limit());
+
+        samples(limit, 20, SLOW);
+
+        assertTrue(limit.limit() < 20, "limit " + limit.limit());
+    }
+
+    @Test
+    void release_WhenLessThanHalfOfLimitIsUsed_ThenKeepLimit() {
+        AdaptiveConcurrencyLimit limit = limit(20, 4, 100);
+
+        for (int i = 0; i < 50; i++) {
+            limit.tryAcquire();
+            limit.release(i % 2 == 0 ? FAST : SLOW, 1);
+        }
+
+        assertEquals(20, limit.limit());
+    }
+
+    private static void samples(AdaptiveConcurrencyLimit limit, int count, long rttNanos) {
+        for (int i = 0; i < count; i++) {
+            limit.tryAcquire();
+            limit.release(rttNanos, limit.limit());
+        }
+    }
+
+    private static AdaptiveConcurrencyLimit limit(int initialLimit, int minLimit, int maxLimit) {
+        return new AdaptiveConcurrencyLimit(new ConcurrencyLimitProperties(
+                true, initialLimit, minLimit, maxLimit, 2.0, 0.2, Duration.ofSeconds(1)));
+    }
+}
@@ -0,0 +1,57 @@
+package ani.foritk.controller;
+
+import ani.foritk.config.ConcurrencyLimitProperties;
+import ani.foritk.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimitInterceptorTest {
+    private final ConcurrencyLimitInterceptor interceptor = new ConcurrencyLimitInterceptor(
+            new ConcurrencyLimitProperties(true, 1, 1, 1, 2.0, 0.2, Duration.ofSeconds(1)), new SimpleMeterRegistry());
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Test
+    void preHandle_WhenLookupStreamIsInFlight_ThenRejectNextLookupUntilStreamCompletes() throws Exception {
+        final HandlerMethod lookup = handler("lookup");
+        final MockHttpServletRequest request = new MockHttpServletRequest();
+        assertTrue(interceptor.preHandle(request, response, lookup));
+        interceptor.afterConcurrentHandlingStarted(request, response, lookup);
+
+        request.setDispatcherType(DispatcherType.ASYNC);
+        assertTrue(interceptor.preHandle(request, response, lookup));
+        assertThrows(ServiceOverloadedException.class,
+                () -> interceptor.preHandle(new MockHttpServletRequest(), response, lookup));
+
+        interceptor.afterCompletion(request, response, lookup, null);
+
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest(), response, lookup));
+    }
+
+    @Test
+    void preHandle_WhenLookupsAreAtLimit_ThenStillAdmitReads() throws Exception {
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest(), response, handler("lookup")));
+
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest(), response, handler("read")));
+    }
+
+    private static HandlerMethod handler(String name) throws NoSuchMethodException {
+        return new HandlerMethod(new Endpoints(), Endpoints.class.getMethod(name));
+    }
+
+    static class Endpoints {
+        @ConcurrencyLimited(ConcurrencyLimited.Kind.READ)
+        public void read() {}
+
+        @ConcurrencyLimited(ConcurrencyLimited.Kind.LOOKUP)
+        public void lookup() {}
+    }
+}
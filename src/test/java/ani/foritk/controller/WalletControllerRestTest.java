@@ -1,31 +1,72 @@
 package ani.foritk.controller;
 
+import ani.foritk.dto.BatchItemResultDto;
+import ani.foritk.dto.BatchItemStatus;
+import ani.foritk.dto.BatchMode;
+import ani.foritk.dto.BatchUpdateResultDto;
+import ani.foritk.dto.BatchUpdateWalletDto;
+import ani.foritk.dto.CreateWalletDto;
 import ani.foritk.dto.OperationType;
+import ani.foritk.dto.TransferWalletDto;
 import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.dto.WalletImportResultDto;
+import ani.foritk.dto.WalletLookupDto;
+import ani.foritk.dto.WalletLookupResultDto;
+import ani.foritk.dto.WalletOperationDto;
+import ani.foritk.entity.Money;
 import ani.foritk.entity.Wallet;
+import ani.foritk.exception.ConcurrentUpdateException;
+import ani.foritk.exception.FeatureUnavailableException;
+import ani.foritk.exception.IdempotencyKeyReusedException;
 import ani.foritk.exception.InsufficientFundsException;
+import ani.foritk.exception.InvalidImportException;
+import ani.foritk.exception.ServiceOverloadedException;
+import ani.foritk.exception.WalletAlreadyExistsException;
+import ani.foritk.exception.WalletBusyException;
+import ani.foritk.exception.WalletNotFoundException;
+import ani.foritk.service.WalletBatchService;
+import ani.foritk.service.WalletImportService;
+import ani.foritk.service.WalletLookupService;
+import ani.foritk.service.WalletOperationLedger;
 import ani.foritk.service.WalletService;
+import ani.foritk.service.WalletTransferService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
-import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(WalletController.class)
+@Import(SimpleMeterRegistry.class)
 class WalletControllerRestTest {
 
     @Autowired
@@ -37,12 +78,27 @@ class WalletControllerRestTest {
     @MockitoBean
     private WalletService walletService;
 
+    @MockitoBean
+    private WalletBatchService walletBatchService;
+
+    @MockitoBean
+    private WalletTransferService walletTransferService;
+
+    @MockitoBean
+    private WalletLookupService walletLookupService;
+
+    @MockitoBean
+    private WalletImportService walletImportService;
+
+    @MockitoBean
+    private WalletOperationLedger walletOperationLedger;
+
     @Test
     void getById_WhenFound_ThenSuccess() throws Exception {
         UUID walletId = UUID.randomUUID();
         Wallet wallet = new Wallet();
         wallet.setId(walletId);
-        wallet.setBalance(new BigDecimal("100.00"));
+        wallet.setBalance(Money.of("100.00"));
 
         when(walletService.getWallet(walletId)).thenReturn(wallet);
 
@@ -52,6 +108,21 @@ class WalletControllerRestTest {
                 .andExpect(jsonPath("$.balance").value(100.00));
     }
 
+    @Test
+    void getById_WhenStrict_ThenReadLatestWallet() throws Exception {
+        UUID walletId = UUID.randomUUID();
+        Wallet wallet = new Wallet();
+        wallet.setId(walletId);
+        wallet.setBalance(Money.of("42.00"));
+
+        when(walletService.getWalletStrict(walletId)).thenReturn(wallet);
+
+        mockMvc.perform(get("/api/v1/wallets/" + walletId).param("strict", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(42.00));
+        verify(walletService, never()).getWallet(any());
+    }
+
     @Test
     void getById_WhenNotFound_Then404() throws Exception {
         String errorMessage = "Not Found";
@@ -63,6 +134,82 @@ class WalletControllerRestTest {
                 .andExpect(jsonPath("$.message").value(errorMessage));
     }
 
+    @Test
+    void getOperations_WhenWalletHasHistory_ThenStreamOneJsonObjectPerLine() throws Exception {
+        UUID walletId = UUID.randomUUID();
+        Instant createdAt = Instant.parse("2026-10-01T12:00:00Z");
+        when(walletService.getWalletStrict(walletId)).thenReturn(new Wallet());
+        doAnswer(invocation -> {
+            Consumer<WalletOperationDto> consumer = invocation.getArgument(3);
+            consumer.accept(new WalletOperationDto(
+                    8, walletId, OperationType.DEPOSIT, Money.of("10"), Money.of("10"), createdAt));
+            consumer.accept(new WalletOperationDto(
+                    9, walletId, OperationType.WITHDRAW, Money.of("2.5"), Money.of("7.5"), createdAt));
+            return null;
+        }).when(walletOperationLedger).export(eq(walletId), eq(7L), eq(2L), any());
+
+        MvcResult result = mockMvc.perform(get("/api/v1/wallets/" + walletId + "/operations")
+                        .param("after", "7")
+                        .param("limit", "2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(String.format("""
+                        {"id":8,"valletId":"%1$s","operationType":"DEPOSIT","amount":10.00,"balance":10.00,\
+                        "createdAt":"2026-10-01T12:00:00Z"}
+                        {"id":9,"valletId":"%1$s","operationType":"WITHDRAW","amount":2.50,"balance":7.50,\
+                        "createdAt":"2026-10-01T12:00:00Z"}
+                        """, walletId)));
+    }
+
+    @Test
+    void getOperations_WhenWalletIsNotFound_Then404() throws Exception {
+        UUID walletId = UUID.randomUUID();
+        when(walletService.getWalletStrict(walletId)).thenThrow(new WalletNotFoundException(walletId));
+
+        mockMvc.perform(get("/api/v1/wallets/" + walletId + "/operations"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status").value("NOT_FOUND"));
+        verify(walletOperationLedger, never()).export(any(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void lookupWallets_WhenSomeAreMissing_ThenStreamEachResultInline() throws Exception {
+        UUID found = UUID.randomUUID();
+        UUID missing = UUID.randomUUID();
+        doAnswer(invocation -> {
+            Consumer<WalletLookupResultDto> consumer = invocation.getArgument(1);
+            consumer.accept(WalletLookupResultDto.found(found, Money.of("12.3")));
+            consumer.accept(WalletLookupResultDto.missing(missing));
+            return null;
+        }).when(walletLookupService).lookup(eq(List.of(found, missing)), any());
+
+        MvcResult result = mockMvc.perform(post("/api/v1/wallets/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new WalletLookupDto(List.of(found, missing)))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(String.format("""
+                        {"valletId":"%s","found":true,"balance":12.30}
+                        {"valletId":"%s","found":false}
+                        """, found, missing)));
+    }
+
+    @Test
+    void lookupWallets_WhenIdListIsEmpty_ThenBadRequest() throws Exception {
+        mockMvc.perform(post("/api/v1/wallets/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"valletIds\": []}"))
+                .andExpect(status().isBadRequest());
+        verify(walletLookupService, never()).lookup(any(), any());
+    }
+
     @Test
     void updateBalance_WhenWrongEnum_ThenBadRequest() throws Exception {
         String badJson = String.format("""
@@ -103,13 +250,13 @@ class WalletControllerRestTest {
     @Test
     void updateWallet_WhenValidValues_ThenOk() throws Exception {
         UUID walletId = UUID.randomUUID();
-        BigDecimal amount = new BigDecimal("100.00");
+        Money amount = Money.of("100.00");
         Wallet wallet = new Wallet();
         wallet.setId(walletId);
         wallet.setBalance(amount);
         UpdateWalletDto request = new UpdateWalletDto(walletId, OperationType.DEPOSIT, amount);
 
-        when(walletService.updateBalance(any())).thenReturn(wallet);
+        when(walletService.updateBalance(any(), any())).thenReturn(wallet);
 
         mockMvc.perform(post("/api/v1/wallet")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -118,16 +265,32 @@ class WalletControllerRestTest {
                 .andExpect(jsonPath("$.balance").value(100.00));
     }
 
+    @Test
+    void updateWallet_WhenIdempotencyKeyIsReused_ThenUnprocessableEntity() throws Exception {
+        UpdateWalletDto request = new UpdateWalletDto(UUID.randomUUID(), OperationType.DEPOSIT, Money.of("10"));
+        String errorMessage = "Idempotency key key-1 was already used for a different request";
+
+        when(walletService.updateBalance(any(), eq("key-1")))
+                .thenThrow(new IdempotencyKeyReusedException(errorMessage));
+
+        mockMvc.perform(post("/api/v1/wallet")
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.message").value(errorMessage));
+    }
+
     @Test
     void updateWallet_WhenInsufficientFundsException_ThenBadRequest() throws Exception {
         UpdateWalletDto request = new UpdateWalletDto(
                 UUID.randomUUID(),
                 OperationType.WITHDRAW,
-                new BigDecimal("500.00")
+                Money.of("500.00")
         );
 
         String errorMessage = "Not enough money";
-        when(walletService.updateBalance(any())).thenThrow(new InsufficientFundsException(errorMessage));
+        when(walletService.updateBalance(any(), any())).thenThrow(new InsufficientFundsException(errorMessage));
 
         mockMvc.perform(post("/api/v1/wallet")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -136,4 +299,208 @@ class WalletControllerRestTest {
                 .andExpect(jsonPath("$.message").value(errorMessage));
     }
 
-}
\ No newline at end of file
+    @Test
+    void updateWallet_WhenConcurrentUpdateException_ThenConflict() throws Exception {
+        UpdateWalletDto request = new UpdateWalletDto(
+                UUID.randomUUID(),
+                OperationType.DEPOSIT,
+                Money.of("5.00")
+        );
+
+        String errorMessage = "Updated concurrently";
+        when(walletService.updateBalance(any(), any())).thenThrow(new ConcurrentUpdateException(errorMessage, null));
+
+        mockMvc.perform(post("/api/v1/wallet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value(errorMessage))
+                .andExpect(jsonPath("$.hint").exists());
+    }
+
+    @Test
+    void updateWallet_WhenServiceIsOverloaded_ThenTooManyRequestsWithRetryAfter() throws Exception {
+        UpdateWalletDto request = new UpdateWalletDto(UUID.randomUUID(), OperationType.DEPOSIT, Money.of("5.00"));
+
+        when(walletService.updateBalance(any(), any()))
+                .thenThrow(new ServiceOverloadedException("write", 12, Duration.ofMillis(1500)));
+
+        mockMvc.perform(post("/api/v1/wallet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(jsonPath("$.message").value("Too many write requests in flight"))
+                .andExpect(jsonPath("$.hint").exists());
+    }
+
+    @Test
+    void updateWallet_WhenWalletIsBusy_ThenTooManyRequests() throws Exception {
+        UpdateWalletDto request = new UpdateWalletDto(UUID.randomUUID(), OperationType.DEPOSIT, Money.of("5.00"));
+
+        when(walletService.updateBalance(any(), any()))
+                .thenThrow(new WalletBusyException("No capacity to update wallet with ID " + request.valletId()));
+
+        mockMvc.perform(post("/api/v1/wallet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(jsonPath("$.message").value("The wallet has too many updates in flight"))
+                .andExpect(jsonPath("$.hint").exists());
+    }
+
+    @Test
+    void updateWallets_WhenBatchIsProcessed_ThenReturnPerItemResults() throws Exception {
+        UUID walletId = UUID.randomUUID();
+        BatchUpdateWalletDto request = new BatchUpdateWalletDto(
+                List.of(new UpdateWalletDto(walletId, OperationType.DEPOSIT, Money.of("5.00"))),
+                BatchMode.BEST_EFFORT
+        );
+        when(walletBatchService.updateBalances(any())).thenReturn(new BatchUpdateResultDto(
+                BatchMode.BEST_EFFORT,
+                true,
+                List.of(new BatchItemResultDto(0, walletId, BatchItemStatus.APPLIED, Money.of("5.00"), null))
+        ));
+
+        mockMvc.perform(post("/api/v1/wallets/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.committed").value(true))
+                .andExpect(jsonPath("$.results[0].status").value("APPLIED"))
+                .andExpect(jsonPath("$.results[0].balance").value(5.00));
+    }
+
+    @Test
+    void updateWallets_WhenItemIsInvalid_ThenBadRequest() throws Exception {
+        String badJson = """
+                {
+                    "operations": [{"valletId": null, "operationType": "DEPOSIT", "amount": 1}]
+                }
+                """;
+
+        mockMvc.perform(post("/api/v1/wallets/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(badJson))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("operations[0].valletId")));
+    }
+
+    @Test
+    void updateWallets_WhenFeatureIsUnavailable_ThenNotImplemented() throws Exception {
+        BatchUpdateWalletDto request = new BatchUpdateWalletDto(
+                List.of(new UpdateWalletDto(UUID.randomUUID(), OperationType.DEPOSIT, Money.of("5.00"))),
+                BatchMode.ALL_OR_NOTHING
+        );
+        String errorMessage = "Batch updates are not available with the wallet journal";
+
+        when(walletBatchService.updateBalances(any())).thenThrow(new FeatureUnavailableException(errorMessage));
+
+        mockMvc.perform(post("/api/v1/wallets/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isNotImplemented())
+                .andExpect(jsonPath("$.message").value(errorMessage))
+                .andExpect(jsonPath("$.hint").exists());
+    }
+
+    @Test
+    void transfer_WhenFundsAreTransferred_ThenReturnBothWallets() throws Exception {
+        UUID from = UUID.randomUUID();
+        UUID to = UUID.randomUUID();
+        Wallet debited = new Wallet();
+        debited.setId(from);
+        debited.setBalance(Money.of("6.00"));
+        Wallet credited = new Wallet();
+        credited.setId(to);
+        credited.setBalance(Money.of("4.00"));
+        when(walletTransferService.transfer(any())).thenReturn(List.of(debited, credited));
+
+        mockMvc.perform(post("/api/v1/wallets/transfer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new TransferWalletDto(from, to, Money.of("4.00")))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.from.valletId").value(from.toString()))
+                .andExpect(jsonPath("$.from.balance").value(6.00))
+                .andExpect(jsonPath("$.to.valletId").value(to.toString()))
+                .andExpect(jsonPath("$.to.balance").value(4.00));
+    }
+
+    @Test
+    void transfer_WhenWalletsAreTheSame_ThenBadRequest() throws Exception {
+        UUID walletId = UUID.randomUUID();
+
+        mockMvc.perform(post("/api/v1/wallets/transfer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new TransferWalletDto(walletId, walletId, Money.of("1")))))
+                .andExpect(status().isBadRequest());
+
+        verify(walletTransferService, never()).transfer(any());
+    }
+
+
+    @Test
+    void createWallet_WhenValid_Then201() throws Exception {
+        UUID walletId = UUID.randomUUID();
+        Wallet wallet = new Wallet();
+        wallet.setId(walletId);
+        wallet.setBalance(Money.of("5.00"));
+        when(walletService.createWallet(new CreateWalletDto(walletId, Money.of("5.00")))).thenReturn(wallet);
+
+        mockMvc.perform(post("/api/v1/wallets")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"valletId\":\"" + walletId + "\",\"initialBalance\":5.00}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.valletId").value(walletId.toString()))
+                .andExpect(jsonPath("$.balance").value(5.00));
+    }
+
+    @Test
+    void createWallet_WhenInitialBalanceIsNegative_Then400() throws Exception {
+        mockMvc.perform(post("/api/v1/wallets")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"initialBalance\":-1}"))
+                .andExpect(status().isBadRequest());
+        verify(walletService, never()).createWallet(any());
+    }
+
+    @Test
+    void createWallet_WhenWalletExists_Then409() throws Exception {
+        UUID walletId = UUID.randomUUID();
+        when(walletService.createWallet(any())).thenThrow(new WalletAlreadyExistsException(walletId));
+
+        mockMvc.perform(post("/api/v1/wallets")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"valletId\":\"" + walletId + "\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Wallet with ID " + walletId + " already exists"));
+    }
+
+    @Test
+    void importWallets_WhenCsv_ThenReturnCounts() throws Exception {
+        when(walletImportService.importWallets(any(), eq(WalletImportService.Format.CSV)))
+                .thenReturn(new WalletImportResultDto(3, 2, 1, 15));
+
+        mockMvc.perform(post("/api/v1/wallets/import")
+                        .contentType("text/csv")
+                        .content("valletId,initialBalance\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(3))
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.duplicates").value(1));
+    }
+
+    @Test
+    void importWallets_WhenRowIsInvalid_Then400() throws Exception {
+        when(walletImportService.importWallets(any(), eq(WalletImportService.Format.NDJSON)))
+                .thenThrow(new InvalidImportException("Line 2 has a negative initialBalance"));
+
+        mockMvc.perform(post("/api/v1/wallets/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{}\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsString("Line 2")));
+    }
+}
@@ -0,0 +1,78 @@
+package ani.foritk.entity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MoneyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void of_WhenTextHasAnyScale_ThenRoundsHalfUpToMinorUnits() {
+        assertEquals(1234, Money.of("12.34").minorUnits());
+        assertEquals(1200, Money.of("12").minorUnits());
+        assertEquals(1230, Money.of("12.3").minorUnits());
+        assertEquals(1235, Money.of("12.345").minorUnits());
+        assertEquals(1234, Money.of("12.3449").minorUnits());
+        assertEquals(-1235, Money.of("-12.345").minorUnits());
+        assertEquals(150, Money.of("1.5e0").minorUnits());
+        assertEquals(Money.of(new BigDecimal("12.345")), Money.of("12.345"));
+    }
+
+    @Test
+    void of_WhenTextIsNotDecimalOrTooLarge_ThenThrows() {
+        assertThrows(NumberFormatException.class, () -> Money.of("12,3"));
+        assertThrows(NumberFormatException.class, () -> Money.of("."));
+        assertThrows(ArithmeticException.class, () -> Money.of("92233720368547758.08"));
+        assertThrows(ArithmeticException.class, () -> Money.of("1e21"));
+        assertThrows(ArithmeticException.class, () -> Money.of("0." + "0".repeat(40) + "1e20"));
+    }
+
+    @Test
+    void plus_WhenResultOverflows_ThenThrowsArithmeticException() {
+        Money max = Money.ofMinorUnits(Long.MAX_VALUE);
+
+        assertEquals(Money.ofMinorUnits(Long.MAX_VALUE - 1), max.minus(Money.ofMinorUnits(1)));
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.ofMinorUnits(1)));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinorUnits(Long.MIN_VALUE).minus(Money.ofMinorUnits(1)));
+    }
+
+    @Test
+    void toString_ThenFormatsTwoDecimalPlaces() {
+        assertEquals("0.00", Money.ZERO.toString());
+        assertEquals("0.05", Money.ofMinorUnits(5).toString());
+        assertEquals("-0.05", Money.ofMinorUnits(-5).toString());
+        assertEquals("-12.30", Money.ofMinorUnits(-1230).toString());
+        assertEquals(BigDecimal.valueOf(Long.MAX_VALUE, 2).toPlainString(), Money.ofMinorUnits(Long.MAX_VALUE).toString());
+    }
+
+    @Test
+    void json_ThenReadsAndWritesDecimalNumbers() throws Exception {
+        assertEquals(Money.of("10.50"), objectMapper.readValue("10.5", Money.class));
+        assertEquals(Money.of("10"), objectMapper.readValue("10", Money.class));
+        assertEquals(Money.of("10.01"), objectMapper.readValue("\"10.005\"", Money.class));
+        assertEquals("10.50", objectMapper.writeValueAsString(Money.of("10.5")));
+        InvalidFormatException e = assertThrows(InvalidFormatException.class,
+                () -> objectMapper.readValue("1e30", Money.class));
+        assertTrue(e.getMessage().contains("not a decimal amount"));
+    }
+
+    @Test
+    void json_WhenExponentIsHuge_ThenRejectWithoutExpandingIt() {
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+            assertThrows(InvalidFormatException.class, () -> objectMapper.readValue("1e99999999", Money.class));
+            assertThrows(InvalidFormatException.class, () -> objectMapper.readValue("1e-99999999", Money.class));
+        });
+        assertEquals(Money.ZERO, Money.of("1e-20"));
+        assertEquals(Money.of("10000000000000000"), Money.of("1e16"));
+    }
+}
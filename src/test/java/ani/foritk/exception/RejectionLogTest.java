@@ -0,0 +1,95 @@
+package ani.foritk.exception;
+
+import ani.foritk.entity.Money;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RejectionLogTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(RejectionLog.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private final RejectionLog rejectionLog = new RejectionLog();
+
+    @BeforeEach
+    void attachAppender() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void detachAppender() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    void flush_WhenBurstWithinInterval_ThenOneSummaryLinePerKindAndInterval() {
+        rejectionLog.record(RejectionLog.Kind.INSUFFICIENT_FUNDS, "first");
+        rejectionLog.flush();
+        for (int i = 0; i < 100; i++) {
+            rejectionLog.record(RejectionLog.Kind.INSUFFICIENT_FUNDS, "funds " + i);
+            rejectionLog.record(RejectionLog.Kind.WALLET_NOT_FOUND, "wallet " + i);
+        }
+        rejectionLog.flush();
+        rejectionLog.flush();
+
+        assertEquals(3, appender.list.size());
+        assertEquals("Rejected 1 request(s) for insufficient funds, latest: first",
+                appender.list.get(0).getFormattedMessage());
+        assertEquals("Rejected 100 request(s) for insufficient funds, latest: funds 99",
+                appender.list.get(1).getFormattedMessage());
+        assertEquals("Rejected 100 request(s) for unknown wallets, latest: wallet 99",
+                appender.list.get(2).getFormattedMessage());
+    }
+
+    @Test
+    void close_WhenBurstEndsWithinInterval_ThenLastWindowIsLogged() {
+        final RejectionLog scheduled = new RejectionLog(Duration.ofHours(1));
+        scheduled.record(RejectionLog.Kind.OVERLOADED, "last");
+
+        scheduled.close();
+
+        assertEquals(1, appender.list.size());
+        assertEquals("Rejected 1 request(s) for the concurrency limit, latest: last",
+                appender.list.get(0).getFormattedMessage());
+    }
+
+    @Test
+    void record_WhenIntervalEndsWithoutFurtherRejections_ThenSummaryIsLoggedOnSchedule() throws InterruptedException {
+        final RejectionLog scheduled = new RejectionLog(Duration.ofMillis(50));
+        scheduled.record(RejectionLog.Kind.WALLET_NOT_FOUND, "only");
+
+        final long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (appender.list.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        scheduled.close();
+
+        assertEquals(1, appender.list.size());
+        assertEquals("Rejected 1 request(s) for unknown wallets, latest: only",
+                appender.list.get(0).getFormattedMessage());
+    }
+
+    @Test
+    void newRejection_WhenCreated_ThenNoStackTraceIsCaptured() {
+        UUID id = UUID.randomUUID();
+
+        InsufficientFundsException insufficientFunds = new InsufficientFundsException(id, Money.of("5"));
+        WalletNotFoundException walletNotFound = new WalletNotFoundException(id);
+
+        assertEquals(0, insufficientFunds.getStackTrace().length);
+        assertEquals(0, walletNotFound.getStackTrace().length);
+        assertEquals("Wallet with valletId " + id + " cannot withdraw 5.00", insufficientFunds.getMessage());
+        assertTrue(walletNotFound.getMessage().endsWith(id + " is not found"));
+    }
+}
@@ -0,0 +1,7 @@
+package ani.foritk.load;
+
+enum LoadOperation {
+    DEPOSIT,
+    WITHDRAW,
+    GET
+}
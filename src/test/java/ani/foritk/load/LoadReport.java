@@ -0,0 +1,40 @@
+package ani.foritk.load;
+
+import java.util.Map;
+
+record LoadReport(
+        String scenario,
+        int offeredRate,
+        double elapsedSeconds,
+        Map<LoadOperation, long[]> latencies,
+        Map<String, Long> outcomes,
+        long dropped
+) {
+
+    String format(double lockWaitSeconds, long maxLockWaiters) {
+        final StringBuilder report = new StringBuilder()
+                .append(String.format("%n=== scenario %s: offered %d req/s for %.1f s%n", scenario, offeredRate, elapsedSeconds))
+                .append(String.format("%-10s %10s %10s %10s %10s %10s%n", "operation", "count", "req/s", "p50 ms", "p99 ms", "p999 ms"));
+        long completed = 0;
+        for (Map.Entry<LoadOperation, long[]> entry : latencies.entrySet()) {
+            final long[] values = entry.getValue();
+            completed += values.length;
+            if (values.length == 0) {
+                continue;
+            }
+            report.append(String.format("%-10s %10d %10.1f %10.2f %10.2f %10.2f%n",
+                    entry.getKey(), values.length, values.length / elapsedSeconds,
+                    percentile(values, 0.50), percentile(values, 0.99), percentile(values, 0.999)));
+        }
+        report.append(String.format("throughput %.1f req/s, dropped by client %d%n", completed / elapsedSeconds, dropped))
+                .append(String.format("row lock wait %.2f s in total, up to %d waiting backends%n", lockWaitSeconds, maxLockWaiters))
+                .append("responses:");
+        outcomes.forEach((outcome, count) -> report.append(String.format("%n  %-30s %d", outcome, count)));
+        return report.toString();
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        final int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
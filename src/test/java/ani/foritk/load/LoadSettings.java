@@ -0,0 +1,55 @@
+package ani.foritk.load;
+
+import ani.foritk.entity.Money;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Load test parameters, read from {@code -Dload.*} system properties. Without {@code load.datasource.url}
+ * the test starts an embedded Postgres, which refuses to run as root.
+ */
+record LoadSettings(
+        String datasourceUrl,
+        String datasourceUsername,
+        String datasourcePassword,
+        Set<String> scenarios,
+        int rate,
+        int warmupSeconds,
+        int durationSeconds,
+        int wallets,
+        Map<LoadOperation, Integer> mix,
+        int maxInFlight,
+        Money initialBalance
+) {
+
+    static LoadSettings fromSystemProperties() {
+        return new LoadSettings(
+                System.getProperty("load.datasource.url"),
+                System.getProperty("load.datasource.username", "postgres"),
+                System.getProperty("load.datasource.password", ""),
+                Arrays.stream(System.getProperty("load.scenarios", "hot,uniform").split(","))
+                        .map(String::trim)
+                        .collect(Collectors.toSet()),
+                Integer.getInteger("load.rate", 500),
+                Integer.getInteger("load.warmup-seconds", 5),
+                Integer.getInteger("load.duration-seconds", 20),
+                Integer.getInteger("load.wallets", 1000),
+                parseMix(System.getProperty("load.mix", "DEPOSIT=45,WITHDRAW=45,GET=10")),
+                Integer.getInteger("load.max-in-flight", 2000),
+                Money.of(System.getProperty("load.initial-balance", "1000000.00"))
+        );
+    }
+
+    private static Map<LoadOperation, Integer> parseMix(String mix) {
+        final Map<LoadOperation, Integer> weights = new EnumMap<>(LoadOperation.class);
+        for (String entry : mix.split(",")) {
+            final String[] parts = entry.split("=");
+            weights.put(LoadOperation.valueOf(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,75 @@
+package ani.foritk.load;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Estimates time spent waiting for row locks by sampling the number of backends of the database that
+ * wait on a lock. It uses its own connection so it does not take a slot of the service's pool.
+ */
+final class LockWaitSampler implements AutoCloseable {
+    private static final long INTERVAL_NANOS = 10_000_000L;
+
+    private final Connection connection;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private double waitSeconds;
+    private long samples;
+    private long maxWaiters;
+
+    LockWaitSampler(String url, String username, String password) throws SQLException {
+        this.connection = DriverManager.getConnection(url, username, password);
+        this.thread = new Thread(this::sample, "lock-wait-sampler");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    double waitSeconds() {
+        return waitSeconds;
+    }
+
+    long maxWaiters() {
+        return maxWaiters;
+    }
+
+    long samples() {
+        return samples;
+    }
+
+    private void sample() {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT count(*) FROM pg_stat_activity WHERE wait_event_type = 'Lock' AND datname = current_database()")) {
+            long previous = System.nanoTime();
+            while (running) {
+                final long waiters;
+                try (ResultSet rs = statement.executeQuery()) {
+                    rs.next();
+                    waiters = rs.getLong(1);
+                }
+                final long now = System.nanoTime();
+                waitSeconds += waiters * (now - previous) / 1e9;
+                maxWaiters = Math.max(maxWaiters, waiters);
+                samples++;
+                previous = now;
+                final long sleep = INTERVAL_NANOS - (System.nanoTime() - now);
+                if (sleep > 0) {
+                    Thread.sleep(sleep / 1_000_000, (int) (sleep % 1_000_000));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Lock wait sampling failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() throws SQLException, InterruptedException {
+        running = false;
+        thread.join();
+        connection.close();
+    }
+}
@@ -0,0 +1,142 @@
+package ani.foritk.load;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Issues requests at a fixed arrival rate whatever the response times are. Latency is measured from the
+ * moment a request was due, not from when it was sent, so queueing in the client is not hidden. Requests
+ * that would exceed the in-flight limit are dropped and counted instead of delaying the schedule.
+ */
+final class OpenLoopDriver {
+    private static final int MAX_AMOUNT_CENTS = 10_000;
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final LoadSettings settings;
+    private final LoadOperation[] operationWheel;
+    private final LongAdder appliedCents = new LongAdder();
+    private final LongAdder unknownOutcomes = new LongAdder();
+
+    OpenLoopDriver(HttpClient httpClient, String baseUrl, LoadSettings settings) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+        this.settings = settings;
+        this.operationWheel = settings.mix().entrySet().stream()
+                .flatMap(entry -> Stream.generate(entry::getKey).limit(entry.getValue()))
+                .toArray(LoadOperation[]::new);
+    }
+
+    /**
+     * Net amount, in cents, of the deposits and withdrawals the service acknowledged.
+     */
+    long appliedCents() {
+        return appliedCents.sum();
+    }
+
+    /**
+     * Updates whose outcome is unknown because the request failed or the service answered with 5xx.
+     */
+    long unknownOutcomes() {
+        return unknownOutcomes.sum();
+    }
+
+    LoadReport run(String scenario, List<UUID> wallets, int seconds) throws InterruptedException {
+        final long total = (long) settings.rate() * seconds;
+        final long intervalNanos = TimeUnit.SECONDS.toNanos(1) / settings.rate();
+        final Map<LoadOperation, long[]> latencies = new EnumMap<>(LoadOperation.class);
+        final Map<LoadOperation, AtomicInteger> recorded = new EnumMap<>(LoadOperation.class);
+        for (LoadOperation operation : LoadOperation.values()) {
+            latencies.put(operation, new long[(int) total]);
+            recorded.put(operation, new AtomicInteger());
+        }
+        final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+        final Semaphore inFlight = new Semaphore(settings.maxInFlight());
+        final SplittableRandom random = new SplittableRandom(scenario.hashCode());
+        long dropped = 0;
+
+        final long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            final long due = start + i * intervalNanos;
+            final long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            final LoadOperation operation = operationWheel[random.nextInt(operationWheel.length)];
+            final UUID wallet = wallets.get(random.nextInt(wallets.size()));
+            final long cents = 1 + random.nextInt(MAX_AMOUNT_CENTS);
+            if (!inFlight.tryAcquire()) {
+                dropped++;
+                continue;
+            }
+            httpClient.sendAsync(request(operation, wallet, cents), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        final long latency = System.nanoTime() - due;
+                        final String outcome = error != null ? error.getClass().getSimpleName()
+                                : String.valueOf(response.statusCode());
+                        outcomes.computeIfAbsent(operation + " " + outcome, key -> new LongAdder()).increment();
+                        account(operation, cents, error == null ? response.statusCode() : -1);
+                        latencies.get(operation)[recorded.get(operation).getAndIncrement()] = latency;
+                        inFlight.release();
+                    });
+        }
+        inFlight.acquire(settings.maxInFlight());
+        inFlight.release(settings.maxInFlight());
+        final double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        final Map<LoadOperation, long[]> sorted = new EnumMap<>(LoadOperation.class);
+        latencies.forEach((operation, values) -> {
+            final long[] copy = Arrays.copyOf(values, recorded.get(operation).get());
+            Arrays.sort(copy);
+            sorted.put(operation, copy);
+        });
+        final Map<String, Long> counts = new TreeMap<>();
+        outcomes.forEach((key, count) -> counts.put(key, count.sum()));
+        return new LoadReport(scenario, settings.rate(), elapsedSeconds, sorted, counts, dropped);
+    }
+
+    private void account(LoadOperation operation, long cents, int status) {
+        if (operation == LoadOperation.GET) {
+            return;
+        }
+        if (status == 200) {
+            appliedCents.add(operation == LoadOperation.DEPOSIT ? cents : -cents);
+        } else if (status < 0 || status >= 500) {
+            unknownOutcomes.increment();
+        }
+    }
+
+    private HttpRequest request(LoadOperation operation, UUID wallet, long cents) {
+        if (operation == LoadOperation.GET) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/wallets/" + wallet))
+                    .timeout(Duration.ofSeconds(60))
+                    .GET()
+                    .build();
+        }
+        final String body = "{\"valletId\":\"" + wallet + "\",\"operationType\":\"" + operation
+                + "\",\"amount\":" + BigDecimal.valueOf(cents, 2) + "}";
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/wallet"))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+}
@@ -0,0 +1,109 @@
+package ani.foritk.load;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Drives POST /api/v1/wallet and GET /api/v1/wallets/{id} through the whole application at an open-loop
+ * arrival rate, once against a single hot wallet and once spread over many wallets, then checks that the
+ * balances moved by exactly the acknowledged operations. Run with
+ * {@code mvn test -Pload-test [-Dload.rate=1000 -Dload.datasource.url=jdbc:postgresql://...]}; service
+ * settings such as {@code -Dwallet.update.strategy=atomic} are passed through.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class WalletLoadTest {
+    private static final LoadSettings settings = LoadSettings.fromSystemProperties();
+    private static EmbeddedPostgres embeddedPostgres;
+    private static String jdbcUrl;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        if (settings.datasourceUrl() != null) {
+            jdbcUrl = settings.datasourceUrl();
+        } else {
+            embeddedPostgres = EmbeddedPostgres.start();
+            jdbcUrl = embeddedPostgres.getJdbcUrl("postgres", "postgres");
+        }
+        registry.add("spring.datasource.url", () -> jdbcUrl);
+        registry.add("spring.datasource.username", settings::datasourceUsername);
+        registry.add("spring.datasource.password", settings::datasourcePassword);
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        if (embeddedPostgres != null) {
+            embeddedPostgres.close();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"hot", "uniform"})
+    void updateWallet_UnderOpenLoopLoad_ThenBalancesMatchAcknowledgedOperations(String scenario) throws Exception {
+        assumeTrue(settings.scenarios().contains(scenario), "scenario " + scenario + " is not selected");
+        final List<UUID> wallets = createWallets(scenario.equals("hot") ? 1 : settings.wallets());
+        final long initialSum = sumOf(wallets);
+        final OpenLoopDriver driver = new OpenLoopDriver(
+                HttpClient.newHttpClient(), "http://localhost:" + port, settings);
+
+        driver.run(scenario + " warm-up", wallets, settings.warmupSeconds());
+        final LoadReport report;
+        try (LockWaitSampler sampler = new LockWaitSampler(
+                jdbcUrl, settings.datasourceUsername(), settings.datasourcePassword())) {
+            report = driver.run(scenario, wallets, settings.durationSeconds());
+            sampler.close();
+            System.out.println(report.format(sampler.waitSeconds(), sampler.maxWaiters()));
+        }
+
+        assertEquals(0, driver.unknownOutcomes(), "updates with unknown outcome");
+        assertEquals(initialSum + driver.appliedCents(), sumOf(wallets));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM wallet WHERE balance < 0 AND id = ANY(?)", Integer.class, (Object) uuids(wallets)));
+    }
+
+    private List<UUID> createWallets(int count) {
+        final List<UUID> wallets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            wallets.add(UUID.randomUUID());
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO wallet (id, balance) VALUES (?, ?)", wallets, 1000,
+                (ps, id) -> {
+                    ps.setObject(1, id);
+                    ps.setLong(2, settings.initialBalance().minorUnits());
+                });
+        return wallets;
+    }
+
+    private long sumOf(List<UUID> wallets) {
+        return jdbcTemplate.queryForObject(
+                "SELECT sum(balance) FROM wallet WHERE id = ANY(?)", Long.class, (Object) uuids(wallets));
+    }
+
+    private static UUID[] uuids(List<UUID> wallets) {
+        return wallets.toArray(UUID[]::new);
+    }
+}
@@ -0,0 +1,75 @@
+package ani.foritk.service;
+
+import ani.foritk.dto.OperationType;
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Money;
+import ani.foritk.entity.Wallet;
+import ani.foritk.exception.InsufficientFundsException;
+import ani.foritk.repository.WalletRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AtomicSqlBalanceUpdateStrategyTest {
+
+    private final WalletRepository walletRepository = mock();
+    private final AtomicSqlBalanceUpdateStrategy strategy = new AtomicSqlBalanceUpdateStrategy(
+            walletRepository,
+            TransactionOperations.withoutTransaction()
+    );
+
+    @Test
+    void updateBalance_WhenRowIsUpdated_ThenReturnUpdatedWallet() {
+        UUID id = UUID.randomUUID();
+        Wallet wallet = new Wallet();
+        wallet.setId(id);
+        wallet.setBalance(Money.of("7.5"));
+        when(walletRepository.depositAtomically(id, 1000L)).thenReturn(Optional.of(wallet));
+
+        Wallet result = strategy.updateBalance(new UpdateWalletDto(id, OperationType.DEPOSIT, Money.of("10")));
+
+        assertSame(wallet, result);
+        verify(walletRepository, never()).existsById(any());
+    }
+
+    @Test
+    void updateBalance_WhenWalletIsNotFound_ThenThrowEntityNotFoundException() {
+        UUID id = UUID.randomUUID();
+        when(walletRepository.withdrawAtomically(any(), anyLong())).thenReturn(Optional.empty());
+        when(walletRepository.existsById(id)).thenReturn(false);
+
+        EntityNotFoundException entityNotFoundException = assertThrows(
+                EntityNotFoundException.class,
+                () -> strategy.updateBalance(new UpdateWalletDto(id, OperationType.WITHDRAW, Money.of("1")))
+        );
+        assertEquals("Wallet with ID " + id + " is not found", entityNotFoundException.getMessage());
+    }
+
+    @Test
+    void updateBalance_WhenBalanceLessThanWithdrawAmount_ThenThrowInsufficientFundsException() {
+        UUID id = UUID.randomUUID();
+        Money withdrawAmount = Money.of("600");
+        when(walletRepository.withdrawAtomically(any(), anyLong())).thenReturn(Optional.empty());
+        when(walletRepository.existsById(id)).thenReturn(true);
+
+        InsufficientFundsException insufficientFundsException = assertThrows(
+                InsufficientFundsException.class,
+                () -> strategy.updateBalance(new UpdateWalletDto(id, OperationType.WITHDRAW, withdrawAmount))
+        );
+        assertEquals("Wallet with valletId " + id + " cannot withdraw " + withdrawAmount,
+                insufficientFundsException.getMessage());
+    }
+}
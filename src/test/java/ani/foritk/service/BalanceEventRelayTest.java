@@ -0,0 +1,89 @@
+package ani.foritk.service;
+
+import ani.foritk.config.OutboxProperties;
+import ani.foritk.dto.BalanceChangedEventDto;
+import ani.foritk.dto.OperationType;
+import ani.foritk.entity.Money;
+import ani.foritk.repository.BalanceEventOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class BalanceEventRelayTest {
+
+    private final BalanceEventOutboxRepository balanceEventOutboxRepository = mock();
+    private final BalanceEventSink balanceEventSink = mock();
+    private final BalanceEventRelay balanceEventRelay = new BalanceEventRelay(
+            balanceEventOutboxRepository,
+            balanceEventSink,
+            TransactionOperations.withoutTransaction(),
+            new OutboxProperties(true, 16, 2, 100, Duration.ofMillis(100), Duration.ofSeconds(1),
+                    "file", Path.of("events.ndjson"), null, Duration.ofSeconds(5)),
+            new SimpleMeterRegistry()
+    );
+
+    @Test
+    void relayBatch_WhenPartitionHasEvents_ThenPublishThemBeforeDeleting() throws Exception {
+        List<BalanceChangedEventDto> events = List.of(event(1), event(2));
+        when(balanceEventOutboxRepository.claimPartition()).thenReturn(Optional.of(3)).thenReturn(Optional.empty());
+        when(balanceEventOutboxRepository.findOldest(3, 100)).thenReturn(events);
+
+        assertEquals(2, balanceEventRelay.relayBatch());
+        assertEquals(0, balanceEventRelay.relayBatch());
+
+        InOrder order = inOrder(balanceEventSink, balanceEventOutboxRepository);
+        order.verify(balanceEventSink).publish(events);
+        order.verify(balanceEventOutboxRepository).markRelayed(3, events);
+        verify(balanceEventOutboxRepository, times(1)).createPartitions(16);
+    }
+
+    @Test
+    void relayBatch_WhenSinkFails_ThenKeepEventsInOutbox() throws Exception {
+        List<BalanceChangedEventDto> events = List.of(event(1));
+        when(balanceEventOutboxRepository.claimPartition()).thenReturn(Optional.of(0));
+        when(balanceEventOutboxRepository.findOldest(0, 100)).thenReturn(events);
+        doThrow(new IOException("refused")).when(balanceEventSink).publish(any());
+
+        assertThrows(UncheckedIOException.class, balanceEventRelay::relayBatch);
+
+        verify(balanceEventOutboxRepository, never()).markRelayed(anyInt(), anyList());
+    }
+
+    @Test
+    void relayBatch_WhenNoPartitionIsFree_ThenPublishNothing() {
+        when(balanceEventOutboxRepository.claimPartition()).thenReturn(Optional.empty());
+
+        assertEquals(0, balanceEventRelay.relayBatch());
+
+        verifyNoInteractions(balanceEventSink);
+    }
+
+    private static BalanceChangedEventDto event(long id) {
+        return new BalanceChangedEventDto(id, UUID.randomUUID(), OperationType.DEPOSIT, Money.of("1"),
+                Money.of("1"), Instant.now());
+    }
+}
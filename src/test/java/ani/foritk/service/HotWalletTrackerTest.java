@@ -0,0 +1,105 @@
+package ani.foritk.service;
+
+import ani.foritk.config.WalletMetricsProperties;
+import ani.foritk.dto.HotWalletDto;
+import ani.foritk.dto.HotWalletsDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HotWalletTrackerTest {
+
+    @Test
+    void top_WhenFewerWalletsThanCapacity_ThenReturnsExactCountsInDescendingOrder() {
+        HotWalletTracker tracker = new HotWalletTracker(new WalletMetricsProperties(true, 8));
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            tracker.record(second);
+        }
+        for (int i = 0; i < 9; i++) {
+            tracker.record(first);
+        }
+        tracker.record(third);
+
+        HotWalletsDto top = tracker.top(2);
+
+        assertEquals(15, top.observedUpdates());
+        assertEquals(List.of(new HotWalletDto(first, 9, 0), new HotWalletDto(second, 5, 0)), top.wallets());
+    }
+
+    @Test
+    void top_WhenManyColdWallets_ThenHotWalletsAreTrackedWithinErrorBound() {
+        HotWalletTracker tracker = new HotWalletTracker(new WalletMetricsProperties(true, 32));
+        UUID hot = UUID.randomUUID();
+        UUID warm = UUID.randomUUID();
+        SplittableRandom random = new SplittableRandom(42);
+        int hotUpdates = 0;
+        int warmUpdates = 0;
+        for (int i = 0; i < 100_000; i++) {
+            int roll = random.nextInt(100);
+            if (roll < 10) {
+                tracker.record(hot);
+                hotUpdates++;
+            } else if (roll < 15) {
+                tracker.record(warm);
+                warmUpdates++;
+            } else {
+                tracker.record(UUID.randomUUID());
+            }
+        }
+
+        List<HotWalletDto> top = tracker.top(2).wallets();
+
+        assertEquals(hot, top.get(0).valletId());
+        assertEquals(warm, top.get(1).valletId());
+        assertTrue(top.get(0).updates() >= hotUpdates);
+        assertTrue(top.get(0).updates() - top.get(0).maxOverestimate() <= hotUpdates);
+        assertTrue(top.get(1).updates() >= warmUpdates);
+        assertTrue(top.get(1).maxOverestimate() <= 100_000 / 32);
+    }
+
+    @Test
+    void top_WhenThreadsRecordConcurrently_ThenCountsOfAllStripesAreMerged() throws InterruptedException {
+        HotWalletTracker tracker = new HotWalletTracker(new WalletMetricsProperties(true, 8));
+        UUID hot = UUID.randomUUID();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            UUID own = UUID.randomUUID();
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    tracker.record(hot);
+                    tracker.record(own);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        HotWalletsDto top = tracker.top(8);
+
+        assertEquals(8000, top.observedUpdates());
+        assertEquals(5, top.wallets().size());
+        assertEquals(new HotWalletDto(hot, 4000, 0), top.wallets().get(0));
+    }
+
+    @Test
+    void top_WhenLimitIsOutOfRange_ThenClampToCapacity() {
+        HotWalletTracker tracker = new HotWalletTracker(new WalletMetricsProperties(true, 2));
+        for (int i = 0; i < 5; i++) {
+            tracker.record(UUID.randomUUID());
+        }
+
+        assertEquals(List.of(), tracker.top(-1).wallets());
+        assertEquals(2, tracker.top(Integer.MAX_VALUE).wallets().size());
+    }
+}
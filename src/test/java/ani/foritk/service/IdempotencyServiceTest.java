@@ -0,0 +1,109 @@
+package ani.foritk.service;
+
+import ani.foritk.config.IdempotencyProperties;
+import ani.foritk.dto.OperationType;
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Money;
+import ani.foritk.entity.Wallet;
+import ani.foritk.exception.IdempotencyKeyReusedException;
+import ani.foritk.exception.InvalidIdempotencyKeyException;
+import ani.foritk.repository.IdempotencyKeyRepository;
+import ani.foritk.repository.IdempotencyRecord;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository = mock();
+    private final IdempotencyService idempotencyService = new IdempotencyService(
+            idempotencyKeyRepository,
+            new IdempotencyProperties(true, Duration.ofHours(1), Duration.ofMinutes(1), 4, 16, 100)
+    );
+    private final UUID id = UUID.randomUUID();
+    private final UpdateWalletDto deposit = new UpdateWalletDto(id, OperationType.DEPOSIT, Money.of("5"));
+
+    @Test
+    void replay_WhenResponseIsCommittedInWindow_ThenDoNotQueryDatabase() {
+        idempotencyService.committed("key", deposit, wallet(id, "15.00"));
+
+        Optional<Wallet> result = idempotencyService.replay("key", deposit);
+
+        assertEquals(Money.of("15.00"), result.orElseThrow().getBalance());
+        verify(idempotencyKeyRepository, never()).find(any());
+    }
+
+    @Test
+    void replay_WhenKeyIsOnlyStored_ThenReturnStoredResponse() {
+        when(idempotencyKeyRepository.find("key")).thenReturn(Optional.of(new IdempotencyRecord(
+                "key", id, OperationType.DEPOSIT, Money.of("5.00"), Money.of("15.00"))));
+
+        Optional<Wallet> result = idempotencyService.replay("key", deposit);
+
+        assertEquals(Money.of("15.00"), result.orElseThrow().getBalance());
+    }
+
+    @Test
+    void replay_WhenKeyWasUsedForAnotherRequest_ThenThrowIdempotencyKeyReusedException() {
+        idempotencyService.committed("key", deposit, wallet(id, "15.00"));
+        when(idempotencyKeyRepository.find("key")).thenReturn(Optional.of(new IdempotencyRecord(
+                "key", id, OperationType.DEPOSIT, Money.of("5.00"), Money.of("15.00"))));
+
+        assertThrows(
+                IdempotencyKeyReusedException.class,
+                () -> idempotencyService.replay("key", new UpdateWalletDto(id, OperationType.WITHDRAW, Money.of("1")))
+        );
+    }
+
+    @Test
+    void replay_WhenKeyIsBlank_ThenThrowInvalidIdempotencyKeyException() {
+        assertThrows(InvalidIdempotencyKeyException.class, () -> idempotencyService.replay(" ", deposit));
+    }
+
+    @Test
+    void recorder_WhenKeyIsAlreadyRecorded_ThenThrowDuplicateKeyException() {
+        when(idempotencyKeyRepository.insertIfAbsent(any())).thenReturn(false);
+
+        assertThrows(
+                IdempotencyService.DuplicateKeyException.class,
+                () -> idempotencyService.recorder("key", deposit).accept(wallet(id, "15.00"))
+        );
+    }
+
+    @Test
+    void find_WhenWindowHasPassed_ThenEntryIsForgotten() {
+        AtomicLong clock = new AtomicLong();
+        IdempotencyWindow window = new IdempotencyWindow(Duration.ofNanos(400), 4, 16, clock::get);
+        long hash = IdempotencyWindow.hash("key");
+        window.put(hash, id, 7, Money.of("1.50"));
+
+        clock.set(399);
+        assertEquals(Money.of("1.50"), window.find(hash, id, 7).getBalance());
+        assertNull(window.find(hash, id, 8));
+
+        clock.set(400);
+        window.put(IdempotencyWindow.hash("other"), id, 7, Money.of("1"));
+        assertNull(window.find(hash, id, 7));
+        assertTrue(window.find(IdempotencyWindow.hash("other"), id, 7) != null);
+    }
+
+    private static Wallet wallet(UUID id, String balance) {
+        Wallet wallet = new Wallet();
+        wallet.setId(id);
+        wallet.setBalance(Money.of(balance));
+        return wallet;
+    }
+}
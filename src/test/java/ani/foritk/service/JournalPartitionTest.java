@@ -0,0 +1,51 @@
+package ani.foritk.service;
+
+import ani.foritk.dto.OperationType;
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Money;
+import ani.foritk.entity.Wallet;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+class JournalPartitionTest {
+
+    private final UUID id = UUID.randomUUID();
+    private final JournalFile journal = mock();
+    private final ConcurrentMap<UUID, Wallet> published = new ConcurrentHashMap<>();
+    private final JournalPartition partition = new JournalPartition(0, journal, 16, published);
+
+    @Test
+    void snapshot_WhenForceFailed_ThenCheckpointOnlyAcknowledgedBalances() throws InterruptedException {
+        partition.load(wallet("10.00", 0));
+        partition.start();
+        partition.submit(new UpdateWalletDto(id, OperationType.DEPOSIT, Money.of("5"))).join();
+        doThrow(new UncheckedIOException(new IOException("disk failed"))).when(journal).force();
+
+        assertThrows(CompletionException.class, () -> partition.submit(
+                new UpdateWalletDto(id, OperationType.DEPOSIT, Money.of("7"))).join());
+        partition.stop();
+
+        assertEquals(List.of(wallet("15.00", 1)), partition.snapshot().wallets());
+        assertEquals(Money.of("15.00"), published.get(id).getBalance());
+    }
+
+    private Wallet wallet(String balance, long version) {
+        Wallet wallet = new Wallet();
+        wallet.setId(id);
+        wallet.setBalance(Money.of(balance));
+        wallet.setVersion(version);
+        return wallet;
+    }
+}
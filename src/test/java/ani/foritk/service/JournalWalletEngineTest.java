@@ -0,0 +1,178 @@
+package ani.foritk.service;
+
+import ani.foritk.config.JournalProperties;
+import ani.foritk.dto.OperationType;
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Money;
+import ani.foritk.entity.Wallet;
+import ani.foritk.exception.InsufficientFundsException;
+import ani.foritk.repository.WalletJdbcRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class JournalWalletEngineTest {
+
+    private final UUID id = UUID.randomUUID();
+    private final List<JournalWalletEngine> engines = new ArrayList<>();
+
+    @TempDir
+    private Path directory;
+
+    @AfterEach
+    void stopEngines() throws InterruptedException {
+        for (JournalWalletEngine engine : engines) {
+            engine.stop();
+        }
+    }
+
+    @Test
+    void updateBalance_WhenOperationsAreValid_ThenBalanceIsServedFromMemory() {
+        JournalWalletEngine engine = start(repositoryWith(wallet(id, "10.00", 0)), directory);
+
+        engine.updateBalance(new UpdateWalletDto(id, OperationType.DEPOSIT, Money.of("5.5")));
+        Wallet result = engine.updateBalance(new UpdateWalletDto(id, OperationType.WITHDRAW, Money.of("3")));
+
+        assertEquals(Money.of("12.50"), result.getBalance());
+        assertEquals(2L, result.getVersion());
+        assertEquals(result, engine.getWallet(id));
+    }
+
+    @Test
+    void updateBalance_WhenBalanceLessThanWithdrawAmount_ThenThrowInsufficientFundsException() {
+        JournalWalletEngine engine = start(repositoryWith(wallet(id, "10.00", 0)), directory);
+
+        assertThrows(
+                InsufficientFundsException.class,
+                () -> engine.updateBalance(new UpdateWalletDto(id, OperationType.WITHDRAW, Money.of("11")))
+        );
+        assertEquals(Money.of("10.00"), engine.getWallet(id).getBalance());
+    }
+
+    @Test
+    void updateBalance_WhenWalletIsNotFound_ThenThrowEntityNotFoundException() {
+        JournalWalletEngine engine = start(repositoryWith(wallet(id, "10.00", 0)), directory);
+        UUID unknown = UUID.randomUUID();
+
+        assertThrows(
+                EntityNotFoundException.class,
+                () -> engine.updateBalance(new UpdateWalletDto(unknown, OperationType.DEPOSIT, Money.of("1")))
+        );
+        assertThrows(EntityNotFoundException.class, () -> engine.getWallet(unknown));
+    }
+
+    @Test
+    void start_WhenJournalHasUncheckpointedRecords_ThenReplayAndCheckpointThem() throws IOException {
+        JournalWalletEngine engine = start(repositoryWith(wallet(id, "10.00", 0)), directory);
+        engine.updateBalance(new UpdateWalletDto(id, OperationType.DEPOSIT, Money.of("5")));
+        engine.updateBalance(new UpdateWalletDto(id, OperationType.DEPOSIT, Money.of("5")));
+        Path crashed = copyJournal(directory);
+
+        WalletJdbcRepository repository = repositoryWith(wallet(id, "10.00", 0));
+        JournalWalletEngine recovered = start(repository, crashed);
+
+        assertEquals(Money.of("20.00"), recovered.getWallet(id).getBalance());
+        assertEquals(2L, recovered.getWallet(id).getVersion());
+        assertEquals(List.of(wallet(id, "20.00", 2)), checkpointed(repository));
+    }
+
+    @Test
+    void start_WhenLastRecordIsTorn_ThenReplayUpToIt() throws IOException {
+        JournalWalletEngine engine = start(repositoryWith(wallet(id, "10.00", 0)), directory);
+        engine.updateBalance(new UpdateWalletDto(id, OperationType.DEPOSIT, Money.of("1")));
+        engine.updateBalance(new UpdateWalletDto(id, OperationType.DEPOSIT, Money.of("1")));
+        Path crashed = copyJournal(directory);
+        for (Path segment : JournalFile.list(crashed)) {
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}), JournalFile.RECORD_SIZE + 20);
+            }
+        }
+
+        JournalWalletEngine recovered = start(repositoryWith(wallet(id, "10.00", 0)), crashed);
+
+        assertEquals(Money.of("11.00"), recovered.getWallet(id).getBalance());
+    }
+
+    @Test
+    void checkpoint_WhenWalletsChanged_ThenWriteLatestStateAndDropCoveredSegments() {
+        WalletJdbcRepository repository = repositoryWith(wallet(id, "10.00", 0));
+        JournalWalletEngine engine = start(repository, directory);
+        for (int i = 0; i < 200; i++) {
+            engine.updateBalance(new UpdateWalletDto(id, OperationType.DEPOSIT, Money.of("1")));
+        }
+        assertTrue(JournalFile.list(directory).size() > 2);
+
+        engine.checkpoint();
+
+        List<Wallet> checkpointed = checkpointed(repository);
+        assertEquals(List.of(wallet(id, "210.00", 200)), checkpointed);
+        assertEquals(200L, checkpointed.get(0).getVersion());
+        assertEquals(2, JournalFile.list(directory).size());
+    }
+
+    private JournalWalletEngine start(WalletJdbcRepository repository, Path directory) {
+        JournalWalletEngine engine = new JournalWalletEngine(repository, new JournalProperties(
+                true, directory, 2, DataSize.ofKilobytes(4), 64, Duration.ofHours(1), 100));
+        engine.start();
+        engines.add(engine);
+        return engine;
+    }
+
+    private static WalletJdbcRepository repositoryWith(Wallet wallet) {
+        WalletJdbcRepository repository = mock();
+        doAnswer(invocation -> {
+            Consumer<Wallet> consumer = invocation.getArgument(0);
+            consumer.accept(wallet(wallet.getId(), wallet.getBalance().toString(), wallet.getVersion()));
+            return null;
+        }).when(repository).forEachWallet(any());
+        return repository;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Wallet> checkpointed(WalletJdbcRepository repository) {
+        ArgumentCaptor<Collection<Wallet>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(repository).checkpoint(captor.capture(), anyInt());
+        return List.copyOf(captor.getValue());
+    }
+
+    private static Path copyJournal(Path directory) throws IOException {
+        Path copy = Files.createDirectory(directory.resolve("crashed"));
+        for (Path segment : JournalFile.list(directory)) {
+            Files.copy(segment, copy.resolve(segment.getFileName()));
+        }
+        return copy;
+    }
+
+    private static Wallet wallet(UUID id, String balance, long version) {
+        Wallet wallet = new Wallet();
+        wallet.setId(id);
+        wallet.setBalance(Money.of(balance));
+        wallet.setVersion(version);
+        return wallet;
+    }
+}
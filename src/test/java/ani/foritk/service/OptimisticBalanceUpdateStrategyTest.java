@@ -0,0 +1,69 @@
+package ani.foritk.service;
+
+import ani.foritk.config.OptimisticRetryProperties;
+import ani.foritk.dto.OperationType;
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Money;
+import ani.foritk.entity.Wallet;
+import ani.foritk.exception.ConcurrentUpdateException;
+import ani.foritk.repository.WalletRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OptimisticBalanceUpdateStrategyTest {
+
+    private final WalletRepository walletRepository = mock();
+    private final OptimisticBalanceUpdateStrategy strategy = new OptimisticBalanceUpdateStrategy(
+            walletRepository,
+            TransactionOperations.withoutTransaction(),
+            new OptimisticRetryProperties(3, Duration.ofMillis(1), Duration.ofMillis(2))
+    );
+
+    @Test
+    void updateBalance_WhenVersionConflictIsTransient_ThenRetryAndSucceed() {
+        UUID id = UUID.randomUUID();
+        when(walletRepository.findById(any())).thenAnswer(invocation -> Optional.of(wallet(id, "10")));
+        when(walletRepository.saveAndFlush(any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Wallet.class, id))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        Wallet result = strategy.updateBalance(new UpdateWalletDto(id, OperationType.DEPOSIT, Money.of("2.5")));
+
+        assertEquals(wallet(id, "12.5"), result);
+        verify(walletRepository, times(2)).findById(id);
+    }
+
+    @Test
+    void updateBalance_WhenVersionConflictPersists_ThenThrowConcurrentUpdateException() {
+        UUID id = UUID.randomUUID();
+        when(walletRepository.findById(any())).thenAnswer(invocation -> Optional.of(wallet(id, "10")));
+        when(walletRepository.saveAndFlush(any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Wallet.class, id));
+
+        assertThrows(
+                ConcurrentUpdateException.class,
+                () -> strategy.updateBalance(new UpdateWalletDto(id, OperationType.WITHDRAW, Money.of("1")))
+        );
+        verify(walletRepository, times(3)).saveAndFlush(any());
+    }
+
+    private static Wallet wallet(UUID id, String balance) {
+        Wallet wallet = new Wallet();
+        wallet.setId(id);
+        wallet.setBalance(Money.of(balance));
+        return wallet;
+    }
+}
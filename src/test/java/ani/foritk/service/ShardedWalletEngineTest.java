@@ -0,0 +1,123 @@
+package ani.foritk.service;
+
+import ani.foritk.config.ShardingProperties;
+import ani.foritk.dto.OperationType;
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Money;
+import ani.foritk.entity.Wallet;
+import ani.foritk.exception.InsufficientFundsException;
+import ani.foritk.repository.WalletShardRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ShardedWalletEngineTest {
+
+    private final UUID walletId = UUID.randomUUID();
+    private final WalletShardRepository walletShardRepository = mock();
+    private final ShardedWalletEngine shardedWalletEngine = new ShardedWalletEngine(
+            walletShardRepository,
+            TransactionOperations.withoutTransaction(),
+            new ShardingProperties(true, 4, List.of(walletId)),
+            new SimpleMeterRegistry()
+    );
+
+    @Test
+    void start_WhenWalletDoesNotExist_ThenItIsNotSharded() {
+        UUID missing = UUID.randomUUID();
+        ShardedWalletEngine engine = new ShardedWalletEngine(walletShardRepository,
+                TransactionOperations.withoutTransaction(),
+                new ShardingProperties(true, 4, List.of(walletId, missing)),
+                new SimpleMeterRegistry());
+        when(walletShardRepository.createShards(walletId, 4)).thenReturn(true);
+
+        engine.start();
+
+        assertTrue(engine.isSharded(walletId));
+        assertFalse(engine.isSharded(missing));
+    }
+
+    @Test
+    void updateBalance_WhenLocalShardHoldsAmount_ThenWithdrawWithoutRebalance() {
+        when(walletShardRepository.withdraw(eq(walletId), anyInt(), eq(500L))).thenReturn(true);
+        when(walletShardRepository.findTotal(walletId)).thenReturn(Optional.of(wallet(Money.of("95"))));
+
+        Wallet wallet = shardedWalletEngine.updateBalance(
+                new UpdateWalletDto(walletId, OperationType.WITHDRAW, Money.of("5")), updated -> {});
+
+        assertEquals(Money.of("95"), wallet.getBalance());
+        verify(walletShardRepository, never()).lockAll(any());
+    }
+
+    @Test
+    void updateBalance_WhenLocalShardIsShort_ThenSpreadRemainderOverShards() {
+        when(walletShardRepository.withdraw(eq(walletId), anyInt(), anyLong())).thenReturn(false);
+        when(walletShardRepository.lockAll(walletId)).thenReturn(List.of(3L, 100L, 0L, 400L, 0L));
+        when(walletShardRepository.findTotal(walletId)).thenReturn(Optional.of(wallet(Money.ofMinorUnits(403))));
+
+        shardedWalletEngine.updateBalance(
+                new UpdateWalletDto(walletId, OperationType.WITHDRAW, Money.ofMinorUnits(100)), updated -> {});
+
+        verify(walletShardRepository).redistribute(walletId, 3L, new long[]{100, 100, 100, 100});
+    }
+
+    @Test
+    void updateBalance_WhenTotalIsShort_ThenThrowInsufficientFundsException() {
+        when(walletShardRepository.withdraw(eq(walletId), anyInt(), anyLong())).thenReturn(false);
+        when(walletShardRepository.lockAll(walletId)).thenReturn(List.of(0L, 10L, 10L, 10L, 10L));
+
+        assertThrows(InsufficientFundsException.class, () -> shardedWalletEngine.updateBalance(
+                new UpdateWalletDto(walletId, OperationType.WITHDRAW, Money.ofMinorUnits(41)), updated -> {}));
+        verify(walletShardRepository, never()).redistribute(any(), anyLong(), any());
+    }
+
+    @Test
+    void lockTotals_WhenWalletIsSharded_ThenLockItsShardsAndReturnTheTotal() {
+        UUID plain = UUID.randomUUID();
+        when(walletShardRepository.createShards(walletId, 4)).thenReturn(true);
+        when(walletShardRepository.lockAll(walletId)).thenReturn(List.of(3L, 100L, 0L, 400L, 0L));
+        shardedWalletEngine.start();
+        Wallet row = wallet(Money.ofMinorUnits(3));
+        Wallet other = wallet(Money.of("1"));
+        other.setId(plain);
+
+        Map<UUID, Wallet> totals = shardedWalletEngine.lockTotals(Map.of(walletId, row, plain, other));
+
+        assertEquals(Money.ofMinorUnits(503), totals.get(walletId).getBalance());
+        assertEquals(other, totals.get(plain));
+        verify(walletShardRepository, never()).lockAll(plain);
+    }
+
+    @Test
+    void setBalance_WhenTotalDoesNotDivideEvenly_ThenKeepRemainderInWalletRow() {
+        shardedWalletEngine.setBalance(walletId, Money.ofMinorUnits(403));
+
+        verify(walletShardRepository).redistribute(walletId, 3L, new long[]{100, 100, 100, 100});
+    }
+
+    private Wallet wallet(Money balance) {
+        Wallet wallet = new Wallet();
+        wallet.setId(walletId);
+        wallet.setBalance(balance);
+        wallet.setVersion(0L);
+        return wallet;
+    }
+}
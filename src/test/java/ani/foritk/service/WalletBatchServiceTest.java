@@ -0,0 +1,139 @@
+package ani.foritk.service;
+
+import ani.foritk.dto.BatchItemStatus;
+import ani.foritk.dto.BatchMode;
+import ani.foritk.dto.BatchUpdateResultDto;
+import ani.foritk.dto.BatchUpdateWalletDto;
+import ani.foritk.dto.OperationType;
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Money;
+import ani.foritk.entity.Wallet;
+import ani.foritk.repository.WalletJdbcRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WalletBatchServiceTest {
+
+    private final WalletJdbcRepository walletJdbcRepository = mock();
+    private final WalletBatchService walletBatchService = new WalletBatchService(
+            walletJdbcRepository,
+            TransactionOperations.withoutTransaction(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty()
+    );
+    private final UUID first = UUID.randomUUID();
+    private final UUID second = UUID.randomUUID();
+    private final UUID unknown = UUID.randomUUID();
+
+    @Test
+    void updateBalances_WhenAllOperationsSucceed_ThenWriteOneRowPerWallet() {
+        when(walletJdbcRepository.lockAll(any())).thenReturn(Map.of(
+                first, wallet(first, "10.00", 1),
+                second, wallet(second, "0.00", 4)));
+
+        BatchUpdateResultDto result = walletBatchService.updateBalances(new BatchUpdateWalletDto(List.of(
+                new UpdateWalletDto(first, OperationType.WITHDRAW, Money.of("4")),
+                new UpdateWalletDto(second, OperationType.DEPOSIT, Money.of("3")),
+                new UpdateWalletDto(first, OperationType.WITHDRAW, Money.of("6"))
+        ), null));
+
+        assertTrue(result.committed());
+        assertEquals(BatchMode.ALL_OR_NOTHING, result.mode());
+        assertEquals(List.of(Money.of("6.00"), Money.of("3.00"), Money.of("0.00")),
+                result.results().stream().map(item -> item.balance()).toList());
+        List<Wallet> written = written();
+        assertEquals(2, written.size());
+        assertTrue(written.contains(wallet(first, "0.00", 2)));
+        assertTrue(written.contains(wallet(second, "3.00", 5)));
+    }
+
+    @Test
+    void updateBalances_WhenAllOrNothingHasFailure_ThenRollBackEverything() {
+        when(walletJdbcRepository.lockAll(any())).thenReturn(Map.of(first, wallet(first, "10.00", 1)));
+
+        BatchUpdateResultDto result = walletBatchService.updateBalances(new BatchUpdateWalletDto(List.of(
+                new UpdateWalletDto(first, OperationType.DEPOSIT, Money.of("1")),
+                new UpdateWalletDto(unknown, OperationType.DEPOSIT, Money.of("1")),
+                new UpdateWalletDto(first, OperationType.WITHDRAW, Money.of("100"))
+        ), BatchMode.ALL_OR_NOTHING));
+
+        assertFalse(result.committed());
+        assertEquals(List.of(BatchItemStatus.ROLLED_BACK, BatchItemStatus.NOT_FOUND, BatchItemStatus.INSUFFICIENT_FUNDS),
+                result.results().stream().map(item -> item.status()).toList());
+        verify(walletJdbcRepository, never()).updateBalances(any(), anyInt());
+    }
+
+    @Test
+    void updateBalances_WhenBestEffortHasFailure_ThenApplyTheRest() {
+        when(walletJdbcRepository.lockAll(any())).thenReturn(Map.of(first, wallet(first, "10.00", 1)));
+
+        BatchUpdateResultDto result = walletBatchService.updateBalances(new BatchUpdateWalletDto(List.of(
+                new UpdateWalletDto(first, OperationType.WITHDRAW, Money.of("100")),
+                new UpdateWalletDto(unknown, OperationType.DEPOSIT, Money.of("1")),
+                new UpdateWalletDto(first, OperationType.WITHDRAW, Money.of("2.5"))
+        ), BatchMode.BEST_EFFORT));
+
+        assertTrue(result.committed());
+        assertEquals(List.of(BatchItemStatus.INSUFFICIENT_FUNDS, BatchItemStatus.NOT_FOUND, BatchItemStatus.APPLIED),
+                result.results().stream().map(item -> item.status()).toList());
+        assertEquals(List.of(wallet(first, "7.50", 2)), written());
+    }
+
+    @Test
+    void updateBalances_WhenWalletIsSharded_ThenWithdrawFromItsTotalAndSpreadTheRest() {
+        ShardedWalletEngine shardedWalletEngine = mock();
+        WalletBatchService service = new WalletBatchService(walletJdbcRepository,
+                TransactionOperations.withoutTransaction(), Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.of(shardedWalletEngine));
+        Map<UUID, Wallet> rows = Map.of(first, wallet(first, "1.00", 3), second, wallet(second, "0.00", 4));
+        when(walletJdbcRepository.lockAll(any())).thenReturn(rows);
+        when(shardedWalletEngine.lockTotals(rows)).thenReturn(Map.of(
+                first, wallet(first, "30.00", 3), second, wallet(second, "0.00", 4)));
+        when(shardedWalletEngine.isSharded(first)).thenReturn(true);
+
+        BatchUpdateResultDto result = service.updateBalances(new BatchUpdateWalletDto(List.of(
+                new UpdateWalletDto(first, OperationType.WITHDRAW, Money.of("25")),
+                new UpdateWalletDto(second, OperationType.DEPOSIT, Money.of("25"))
+        ), null));
+
+        assertTrue(result.committed());
+        assertEquals(Money.of("5.00"), result.results().get(0).balance());
+        verify(shardedWalletEngine).setBalance(first, Money.of("5.00"));
+        assertEquals(List.of(wallet(second, "25.00", 5)), written());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Wallet> written() {
+        ArgumentCaptor<Collection<Wallet>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(walletJdbcRepository).updateBalances(captor.capture(), anyInt());
+        return List.copyOf(captor.getValue());
+    }
+
+    private static Wallet wallet(UUID id, String balance, long version) {
+        Wallet wallet = new Wallet();
+        wallet.setId(id);
+        wallet.setBalance(Money.of(balance));
+        wallet.setVersion(version);
+        return wallet;
+    }
+}
@@ -0,0 +1,70 @@
+package ani.foritk.service;
+
+import ani.foritk.config.BulkheadProperties;
+import ani.foritk.exception.WalletBusyException;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+class WalletBulkheadTest {
+
+    private final UUID hot = UUID.randomUUID();
+    private final UUID cold = UUID.randomUUID();
+
+    @Test
+    void execute_WhenWalletHasTooManyUpdatesInFlight_ThenRejectOnlyThatWallet() throws Exception {
+        WalletBulkhead bulkhead = new WalletBulkhead(
+                new BulkheadProperties(true, 1, 10, Duration.ofSeconds(1)), mock(DataSource.class));
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> blocked = CompletableFuture.supplyAsync(() -> bulkhead.execute(hot, () -> {
+            entered.countDown();
+            await(release);
+            return "first";
+        }));
+        entered.await();
+
+        assertThrows(WalletBusyException.class, () -> bulkhead.execute(hot, () -> "second"));
+        assertEquals("cold", bulkhead.execute(cold, () -> "cold"));
+
+        release.countDown();
+        assertEquals("first", blocked.get());
+        assertEquals("third", bulkhead.execute(hot, () -> "third"));
+    }
+
+    @Test
+    void execute_WhenNoPermitIsFreeInTime_ThenThrowWalletBusyException() throws Exception {
+        WalletBulkhead bulkhead = new WalletBulkhead(
+                new BulkheadProperties(true, 16, 1, Duration.ofMillis(50)), mock(DataSource.class));
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> blocked = CompletableFuture.supplyAsync(() -> bulkhead.execute(hot, () -> {
+            entered.countDown();
+            await(release);
+            return "first";
+        }));
+        entered.await();
+
+        assertThrows(WalletBusyException.class, () -> bulkhead.execute(cold, () -> "cold"));
+
+        release.countDown();
+        assertEquals("first", blocked.get());
+        assertEquals("cold", bulkhead.execute(cold, () -> "cold"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
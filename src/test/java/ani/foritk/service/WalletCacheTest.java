@@ -0,0 +1,82 @@
+package ani.foritk.service;
+
+import ani.foritk.config.WalletCacheProperties;
+import ani.foritk.entity.Money;
+import ani.foritk.entity.Wallet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WalletCacheTest {
+
+    private final WalletCache walletCache = new WalletCache(
+            new WalletCacheProperties(true, 100, Duration.ofMinutes(1)),
+            new SimpleMeterRegistry()
+    );
+    private final UUID id = UUID.randomUUID();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void get_WhenWalletIsCached_ThenDoNotLoadAgain() {
+        walletCache.get(id, this::load);
+        Wallet result = walletCache.get(id, this::load);
+
+        assertEquals(wallet("1.00", 1), result);
+        assertEquals(1, loads.get());
+        assertEquals(1, walletCache.stats().hitCount());
+        assertEquals(1, walletCache.stats().missCount());
+    }
+
+    @Test
+    void committed_WhenVersionIsNewer_ThenReplaceCachedWallet() {
+        walletCache.get(id, this::load);
+        walletCache.committed(wallet("5.00", 2));
+
+        assertEquals(Money.of("5.00"), walletCache.get(id, this::load).getBalance());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void committed_WhenVersionIsOlder_ThenKeepCachedWallet() {
+        walletCache.get(id, this::load);
+        walletCache.committed(wallet("7.00", 3));
+        walletCache.committed(wallet("5.00", 2));
+
+        assertEquals(Money.of("7.00"), walletCache.get(id, this::load).getBalance());
+    }
+
+    @Test
+    void committed_WhenVersionIsEqualWithOtherBalance_ThenEvictCachedWallet() {
+        walletCache.get(id, this::load);
+        walletCache.committed(wallet("5.00", 1));
+
+        walletCache.get(id, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void committed_WhenWalletIsNotCached_ThenDoNotCacheIt() {
+        walletCache.committed(wallet("5.00", 2));
+
+        assertEquals(Money.of("1.00"), walletCache.get(id, this::load).getBalance());
+        assertEquals(1, loads.get());
+    }
+
+    private Wallet load(UUID id) {
+        loads.incrementAndGet();
+        return wallet("1.00", 1);
+    }
+
+    private Wallet wallet(String balance, long version) {
+        Wallet wallet = new Wallet();
+        wallet.setId(id);
+        wallet.setBalance(Money.of(balance));
+        wallet.setVersion(version);
+        return wallet;
+    }
+}
@@ -0,0 +1,42 @@
+package ani.foritk.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WalletIdFilterTest {
+
+    @Test
+    void mightContain_WhenIdWasAdded_ThenAlwaysTrue() {
+        WalletIdFilter filter = new WalletIdFilter(10_000, 0.001);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            filter.add(id);
+        }
+
+        assertTrue(ids.stream().allMatch(filter::mightContain));
+    }
+
+    @Test
+    void mightContain_WhenIdsAreUnknown_ThenFalsePositiveRateStaysNearTarget() {
+        WalletIdFilter filter = new WalletIdFilter(10_000, 0.01);
+        for (long i = 0; i < 10_000; i++) {
+            filter.add(new UUID(0x0192_0000_0000_7000L + (i << 16), 0x8000_0000_0000_0000L | i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(UUID.randomUUID())) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 2_000, falsePositives + " false positives in 100000 lookups");
+    }
+}
@@ -0,0 +1,92 @@
+package ani.foritk.service;
+
+import ani.foritk.config.WalletImportProperties;
+import ani.foritk.config.WalletLedgerProperties;
+import ani.foritk.dto.WalletImportResultDto;
+import ani.foritk.entity.Money;
+import ani.foritk.exception.InvalidImportException;
+import ani.foritk.repository.WalletImportRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WalletImportServiceTest {
+
+    private final WalletImportRepository walletImportRepository = mock();
+    private final WalletImportRepository.ImportSession session = mock();
+    private final WalletImportService walletImportService = new WalletImportService(
+            walletImportRepository,
+            new WalletImportProperties(2),
+            new WalletLedgerProperties(false, 3, 10000, Duration.ofSeconds(5)),
+            Optional.empty(),
+            Optional.empty(),
+            new ObjectMapper()
+    );
+
+    @Test
+    void importWallets_WhenCsvHasHeader_ThenCommitEveryChunk() throws Exception {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        when(walletImportRepository.open(false)).thenReturn(session);
+        when(session.commit()).thenReturn(2L, 0L);
+
+        WalletImportResultDto result = walletImportService.importWallets(input(
+                "valletId,initialBalance\n" + first + ",10.50\n\n" + second + ", 0\n" + third + ",1\n"),
+                WalletImportService.Format.CSV);
+
+        assertEquals(3, result.rows());
+        assertEquals(2, result.imported());
+        assertEquals(1, result.duplicates());
+        verify(session).add(first, Money.of("10.50"));
+        verify(session).add(second, Money.ZERO);
+        verify(session).add(third, Money.of("1"));
+        verify(session, times(2)).commit();
+        verify(session).close();
+    }
+
+    @Test
+    void importWallets_WhenNdjson_ThenReadOneWalletPerLine() throws Exception {
+        UUID id = UUID.randomUUID();
+        when(walletImportRepository.open(false)).thenReturn(session);
+        when(session.commit()).thenReturn(1L);
+
+        WalletImportResultDto result = walletImportService.importWallets(input(
+                "{\"valletId\":\"" + id + "\",\"initialBalance\":3.25}\n"),
+                WalletImportService.Format.NDJSON);
+
+        assertEquals(1, result.imported());
+        verify(session).add(id, Money.of("3.25"));
+    }
+
+    @Test
+    void importWallets_WhenBalanceIsNegative_ThenThrowWithLineNumber() throws Exception {
+        when(walletImportRepository.open(false)).thenReturn(session);
+
+        InvalidImportException exception = assertThrows(
+                InvalidImportException.class,
+                () -> walletImportService.importWallets(input(
+                        UUID.randomUUID() + ",1\n" + UUID.randomUUID() + ",-1\n"),
+                        WalletImportService.Format.CSV)
+        );
+        assertTrue(exception.getMessage().startsWith("Line 2"));
+        verify(session).close();
+    }
+
+    private static ByteArrayInputStream input(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
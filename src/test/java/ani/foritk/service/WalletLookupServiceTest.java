@@ -0,0 +1,62 @@
+package ani.foritk.service;
+
+import ani.foritk.dto.WalletLookupResultDto;
+import ani.foritk.entity.Money;
+import ani.foritk.repository.WalletJdbcRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class WalletLookupServiceTest {
+
+    private final WalletJdbcRepository walletJdbcRepository = mock();
+    private final WalletLookupService walletLookupService = new WalletLookupService(
+            walletJdbcRepository,
+            Optional.empty(),
+            Optional.empty()
+    );
+
+    @Test
+    void lookup_WhenIdsExceedOneChunk_ThenQueryPerChunkAndReportMissingInline() {
+        List<UUID> ids = Stream.generate(UUID::randomUUID).limit(2500).toList();
+        List<UUID> existing = ids.subList(0, 2000);
+        doAnswer(invocation -> {
+            Collection<UUID> chunk = invocation.getArgument(0);
+            BiConsumer<UUID, Money> consumer = invocation.getArgument(1);
+            chunk.stream().filter(existing::contains).forEach(id -> consumer.accept(id, Money.of("1")));
+            return null;
+        }).when(walletJdbcRepository).forEachBalance(any(), any());
+        List<WalletLookupResultDto> results = new ArrayList<>();
+
+        walletLookupService.lookup(ids, results::add);
+
+        verify(walletJdbcRepository, times(3)).forEachBalance(any(), any());
+        assertEquals(2500, results.size());
+        assertEquals(2000, results.stream().filter(WalletLookupResultDto::found).count());
+        assertEquals(ids.subList(2000, 2500), results.stream().filter(result -> !result.found())
+                .map(WalletLookupResultDto::valletId).toList());
+    }
+
+    @Test
+    void lookup_WhenIdIsRepeated_ThenReportItOnce() {
+        UUID id = UUID.randomUUID();
+        List<WalletLookupResultDto> results = new ArrayList<>();
+
+        walletLookupService.lookup(List.of(id, id), results::add);
+
+        assertEquals(List.of(WalletLookupResultDto.missing(id)), results);
+    }
+}
@@ -0,0 +1,87 @@
+package ani.foritk.service;
+
+import ani.foritk.config.WalletLedgerProperties;
+import ani.foritk.dto.OperationType;
+import ani.foritk.dto.WalletOperationDto;
+import ani.foritk.entity.Money;
+import ani.foritk.repository.WalletOperationRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WalletOperationLedgerTest {
+
+    private final WalletOperationRepository walletOperationRepository = mock();
+    private final WalletOperationLedger walletOperationLedger = new WalletOperationLedger(
+            walletOperationRepository,
+            new WalletLedgerProperties(true, 1, 3, Duration.ofSeconds(5))
+    );
+    private final UUID id = UUID.randomUUID();
+
+    @Test
+    void export_WhenHistorySpansSeveralPages_ThenEachPageContinuesAfterLastId() {
+        storeOperations(7);
+        List<Long> exported = new ArrayList<>();
+
+        walletOperationLedger.export(id, 0, Long.MAX_VALUE, operation -> exported.add(operation.id()));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L), exported);
+        verify(walletOperationRepository).forEachOperation(eq(id), eq(0L), any(), eq(3), any(), any());
+        verify(walletOperationRepository).forEachOperation(eq(id), eq(3L), any(), eq(3), any(), any());
+        verify(walletOperationRepository).forEachOperation(eq(id), eq(6L), any(), eq(3), any(), any());
+    }
+
+    @Test
+    void export_WhenLimitIsSet_ThenStopAtLimit() {
+        storeOperations(10);
+        List<Long> exported = new ArrayList<>();
+
+        walletOperationLedger.export(id, 2, 4, operation -> exported.add(operation.id()));
+
+        assertEquals(List.of(3L, 4L, 5L, 6L), exported);
+        verify(walletOperationRepository).forEachOperation(eq(id), eq(5L), any(), eq(1), any(), any());
+    }
+
+    @Test
+    void export_WhenEarlierTransactionsDoNotFinish_ThenEndBeforeTheUnsettledPage() {
+        storeOperations(7);
+        when(walletOperationRepository.forEachOperation(eq(id), eq(3L), any(), anyInt(), any(), any()))
+                .thenReturn(false);
+        List<Long> exported = new ArrayList<>();
+
+        walletOperationLedger.export(id, 0, Long.MAX_VALUE, operation -> exported.add(operation.id()));
+
+        assertEquals(List.of(1L, 2L, 3L), exported);
+        verify(walletOperationRepository, never()).forEachOperation(eq(id), eq(6L), any(), anyInt(), any(), any());
+    }
+
+    private void storeOperations(int count) {
+        doAnswer(invocation -> {
+            long afterId = invocation.getArgument(1);
+            int limit = invocation.getArgument(3);
+            Consumer<WalletOperationDto> consumer = invocation.getArgument(5);
+            for (long operationId = afterId + 1; operationId <= Math.min(count, afterId + limit); operationId++) {
+                consumer.accept(new WalletOperationDto(
+                        operationId, id, OperationType.DEPOSIT, Money.of("1"), Money.of("1"), Instant.EPOCH));
+            }
+            return true;
+        }).when(walletOperationRepository).forEachOperation(any(), anyLong(), any(), anyInt(), any(), any());
+        when(walletOperationRepository.horizon(id)).thenReturn(new WalletOperationRepository.Horizon(count, "1000"));
+    }
+}
@@ -1,34 +1,71 @@
 package ani.foritk.service;
 
+import ani.foritk.config.IdempotencyProperties;
+import ani.foritk.config.OutboxProperties;
+import ani.foritk.config.WalletCacheProperties;
+import ani.foritk.config.WalletExistenceFilterProperties;
+import ani.foritk.dto.CreateWalletDto;
 import ani.foritk.dto.OperationType;
 import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Money;
 import ani.foritk.entity.Wallet;
 import ani.foritk.exception.InsufficientFundsException;
+import ani.foritk.exception.WalletAlreadyExistsException;
+import ani.foritk.exception.WalletNotFoundException;
+import ani.foritk.repository.BalanceEventOutboxRepository;
+import ani.foritk.repository.IdempotencyKeyRepository;
+import ani.foritk.repository.IdempotencyRecord;
+import ani.foritk.repository.WalletJdbcRepository;
+import ani.foritk.repository.WalletOperationRecord;
 import ani.foritk.repository.WalletRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionOperations;
 
-import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 class WalletServiceTest {
 
     private final WalletRepository walletRepository = mock();
-    private final WalletService walletService = new WalletService(walletRepository);
+    private final WalletService walletService = new WalletService(
+            walletRepository,
+            new PessimisticBalanceUpdateStrategy(walletRepository, TransactionOperations.withoutTransaction(), Optional.empty()),
+            TransactionOperations.withoutTransaction(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty()
+    );
 
     @Test
     void getWallet_WhenWalletIsNotFound_ThenThrowEntityNotFoundException() {
         UUID id = UUID.randomUUID();
-        when(walletRepository.findById(any())).thenReturn(Optional.empty());
+        when(walletRepository.findTotalById(any())).thenReturn(Optional.empty());
         EntityNotFoundException entityNotFoundException = assertThrows(
                 EntityNotFoundException.class,
                 () -> walletService.getWallet(id)
@@ -42,22 +79,22 @@ class WalletServiceTest {
         UUID id = UUID.randomUUID();
         Wallet wallet = new Wallet();
         wallet.setId(id);
-        wallet.setBalance(new BigDecimal(1));
-        when(walletRepository.findById(any())).thenReturn(Optional.of(wallet));
+        wallet.setBalance(Money.of("1"));
+        when(walletRepository.findTotalById(any())).thenReturn(Optional.of(wallet));
         Wallet result = walletService.getWallet(id);
 
         Wallet expectedWallet = new Wallet();
         expectedWallet.setId(id);
-        expectedWallet.setBalance(new BigDecimal(1));
+        expectedWallet.setBalance(Money.of("1"));
         assertEquals(expectedWallet, result);
     }
 
     @Test
     void updateBalance_WhenWalletIsNotFound_ThenThrowEntityNotFoundException() {
         UUID id = UUID.randomUUID();
-        UpdateWalletDto updateWalletDto = new UpdateWalletDto(id, OperationType.DEPOSIT, new BigDecimal(1));
+        UpdateWalletDto updateWalletDto = new UpdateWalletDto(id, OperationType.DEPOSIT, Money.of("1"));
 
-        when(walletRepository.findById(any())).thenReturn(Optional.empty());
+        when(walletRepository.findTotalById(any())).thenReturn(Optional.empty());
         EntityNotFoundException entityNotFoundException = assertThrows(
                 EntityNotFoundException.class,
                 () -> walletService.updateBalance(updateWalletDto)
@@ -66,13 +103,75 @@ class WalletServiceTest {
         assertEquals(expectedMessage, entityNotFoundException.getMessage());
     }
 
+    @Test
+    void updateBalance_WhenExistenceFilterRejectsId_ThenThrowWithoutQueryingRepository() {
+        UUID known = UUID.randomUUID();
+        UUID unknown = UUID.randomUUID();
+        WalletJdbcRepository walletJdbcRepository = mock();
+        when(walletJdbcRepository.countWallets()).thenReturn(1L);
+        doAnswer(invocation -> {
+            invocation.<Consumer<UUID>>getArgument(0).accept(known);
+            return null;
+        }).when(walletJdbcRepository).forEachWalletId(any());
+        WalletExistenceFilter walletExistenceFilter = new WalletExistenceFilter(walletJdbcRepository,
+                new WalletExistenceFilterProperties(true, 0.001, 1000, 2.0, Duration.ofMinutes(10), true),
+                new SimpleMeterRegistry());
+        walletExistenceFilter.rebuild();
+        WalletService filteredWalletService = new WalletService(
+                walletRepository,
+                new PessimisticBalanceUpdateStrategy(walletRepository, TransactionOperations.withoutTransaction(), Optional.empty()),
+                TransactionOperations.withoutTransaction(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.of(walletExistenceFilter),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty()
+        );
+
+        assertThrows(WalletNotFoundException.class, () -> filteredWalletService.getWallet(unknown));
+        assertThrows(WalletNotFoundException.class, () -> filteredWalletService.updateBalance(
+                new UpdateWalletDto(unknown, OperationType.DEPOSIT, Money.of("1"))));
+        verifyNoInteractions(walletRepository);
+
+        when(walletRepository.findTotalById(known)).thenReturn(Optional.of(new Wallet()));
+        filteredWalletService.getWallet(known);
+        verify(walletRepository).findTotalById(known);
+    }
+
+    @Test
+    void mightExist_WhenWalletWasCreatedByAnotherInstance_ThenLookItUpOnce() {
+        UUID known = UUID.randomUUID();
+        UUID createdElsewhere = UUID.randomUUID();
+        WalletJdbcRepository walletJdbcRepository = mock();
+        when(walletJdbcRepository.countWallets()).thenReturn(1L);
+        doAnswer(invocation -> {
+            invocation.<Consumer<UUID>>getArgument(0).accept(known);
+            return null;
+        }).when(walletJdbcRepository).forEachWalletId(any());
+        when(walletJdbcRepository.exists(createdElsewhere)).thenReturn(true);
+        WalletExistenceFilter walletExistenceFilter = new WalletExistenceFilter(walletJdbcRepository,
+                new WalletExistenceFilterProperties(true, 0.001, 1000, 2.0, Duration.ofMinutes(10), false),
+                new SimpleMeterRegistry());
+        walletExistenceFilter.rebuild();
+
+        assertTrue(walletExistenceFilter.mightExist(createdElsewhere));
+        assertTrue(walletExistenceFilter.mightExist(createdElsewhere));
+        assertFalse(walletExistenceFilter.mightExist(UUID.randomUUID()));
+        verify(walletJdbcRepository, times(1)).exists(createdElsewhere);
+    }
+
     @Test
     void updateBalance_WhenBalanceLessThanWithdrawAmount_ThenThrowInsufficientFundsException() {
         UUID id = UUID.randomUUID();
         Wallet wallet = new Wallet();
         wallet.setId(id);
-        wallet.setBalance(new BigDecimal(500));
-        BigDecimal withdrawAmount = new BigDecimal(600);
+        wallet.setBalance(Money.of("500"));
+        Money withdrawAmount = Money.of("600");
         UpdateWalletDto updateWalletDto = new UpdateWalletDto(id, OperationType.WITHDRAW, withdrawAmount);
 
         when(walletRepository.findByIdAndLock(any())).thenReturn(Optional.of(wallet));
@@ -89,8 +188,8 @@ class WalletServiceTest {
         UUID id = UUID.randomUUID();
         Wallet wallet = new Wallet();
         wallet.setId(id);
-        wallet.setBalance(new BigDecimal("50.3"));
-        BigDecimal withdrawAmount = new BigDecimal("15.6");
+        wallet.setBalance(Money.of("50.3"));
+        Money withdrawAmount = Money.of("15.6");
         UpdateWalletDto updateWalletDto = new UpdateWalletDto(id, OperationType.WITHDRAW, withdrawAmount);
 
         when(walletRepository.findByIdAndLock(any())).thenReturn(Optional.of(wallet));
@@ -102,7 +201,7 @@ class WalletServiceTest {
 
         Wallet expectedWallet = new Wallet();
         expectedWallet.setId(id);
-        expectedWallet.setBalance(new BigDecimal("34.7"));
+        expectedWallet.setBalance(Money.of("34.7"));
         assertEquals(expectedWallet, result);
     }
 
@@ -111,8 +210,8 @@ class WalletServiceTest {
         UUID id = UUID.randomUUID();
         Wallet wallet = new Wallet();
         wallet.setId(id);
-        wallet.setBalance(new BigDecimal("50.3"));
-        BigDecimal depositAmount = new BigDecimal("15.6");
+        wallet.setBalance(Money.of("50.3"));
+        Money depositAmount = Money.of("15.6");
         UpdateWalletDto updateWalletDto = new UpdateWalletDto(id, OperationType.DEPOSIT, depositAmount);
 
         when(walletRepository.findByIdAndLock(any())).thenReturn(Optional.of(wallet));
@@ -124,7 +223,213 @@ class WalletServiceTest {
 
         Wallet expectedWallet = new Wallet();
         expectedWallet.setId(id);
-        expectedWallet.setBalance(new BigDecimal("65.9"));
+        expectedWallet.setBalance(Money.of("65.9"));
         assertEquals(expectedWallet, result);
     }
-}
\ No newline at end of file
+
+    @Test
+    void updateBalance_WhenOutboxIsEnabled_ThenWriteEventWithNewBalance() {
+        UUID id = UUID.randomUUID();
+        Wallet wallet = new Wallet();
+        wallet.setId(id);
+        wallet.setBalance(Money.of("10"));
+        BalanceEventOutboxRepository balanceEventOutboxRepository = mock();
+        BalanceEventOutbox balanceEventOutbox = new BalanceEventOutbox(balanceEventOutboxRepository,
+                new OutboxProperties(true, 16, 4, 500, Duration.ofMillis(100), Duration.ofSeconds(1),
+                        "file", Path.of("events.ndjson"), null, Duration.ofSeconds(5)));
+        WalletService outboxWalletService = new WalletService(
+                walletRepository,
+                new PessimisticBalanceUpdateStrategy(walletRepository, TransactionOperations.withoutTransaction(), Optional.empty()),
+                TransactionOperations.withoutTransaction(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.of(balanceEventOutbox)
+        );
+
+        when(walletRepository.findByIdAndLock(any())).thenReturn(Optional.of(wallet));
+        when(walletRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        outboxWalletService.updateBalance(new UpdateWalletDto(id, OperationType.WITHDRAW, Money.of("4")));
+
+        verify(balanceEventOutboxRepository).insert(balanceEventOutbox.partitionOf(id),
+                new WalletOperationRecord(id, OperationType.WITHDRAW, Money.of("4"), Money.of("6")));
+    }
+
+    @Test
+    void updateBalance_WhenWalletIsSharded_ThenWriteEventWithoutBalance() {
+        UUID id = UUID.randomUUID();
+        Wallet total = new Wallet();
+        total.setId(id);
+        total.setBalance(Money.of("10"));
+        total.setVersion(0L);
+        BalanceEventOutboxRepository balanceEventOutboxRepository = mock();
+        BalanceEventOutbox balanceEventOutbox = new BalanceEventOutbox(balanceEventOutboxRepository,
+                new OutboxProperties(true, 16, 4, 500, Duration.ofMillis(100), Duration.ofSeconds(1),
+                        "file", Path.of("events.ndjson"), null, Duration.ofSeconds(5)));
+        ShardedWalletEngine shardedWalletEngine = mock();
+        when(shardedWalletEngine.isSharded(id)).thenReturn(true);
+        when(shardedWalletEngine.updateBalance(any(), any())).thenAnswer(invocation -> {
+            Consumer<Wallet> inTransaction = invocation.getArgument(1);
+            inTransaction.accept(total);
+            return total;
+        });
+        WalletService shardedWalletService = new WalletService(
+                walletRepository,
+                new PessimisticBalanceUpdateStrategy(walletRepository, TransactionOperations.withoutTransaction(), Optional.empty()),
+                TransactionOperations.withoutTransaction(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.of(shardedWalletEngine),
+                Optional.of(balanceEventOutbox)
+        );
+
+        Wallet result = shardedWalletService.updateBalance(new UpdateWalletDto(id, OperationType.DEPOSIT, Money.of("4")));
+
+        assertEquals(Money.of("10"), result.getBalance());
+        verify(balanceEventOutboxRepository).insert(balanceEventOutbox.partitionOf(id),
+                new WalletOperationRecord(id, OperationType.DEPOSIT, Money.of("4"), null));
+    }
+
+    @Test
+    void updateBalance_WhenCacheIsEnabled_ThenCachedBalanceIsReplacedAfterCommit() {
+        UUID id = UUID.randomUUID();
+        Wallet wallet = new Wallet();
+        wallet.setId(id);
+        wallet.setBalance(Money.of("10"));
+        wallet.setVersion(1L);
+        WalletService cachedWalletService = new WalletService(
+                walletRepository,
+                new PessimisticBalanceUpdateStrategy(walletRepository, TransactionOperations.withoutTransaction(), Optional.empty()),
+                TransactionOperations.withoutTransaction(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.of(new WalletCache(
+                        new WalletCacheProperties(true, 10, Duration.ofMinutes(1)),
+                        new SimpleMeterRegistry())),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty()
+        );
+        when(walletRepository.findTotalById(any())).thenReturn(Optional.of(wallet));
+        when(walletRepository.findByIdAndLock(any())).thenAnswer(invocation -> {
+            Wallet locked = new Wallet();
+            locked.setId(id);
+            locked.setBalance(Money.of("10"));
+            locked.setVersion(1L);
+            return Optional.of(locked);
+        });
+        when(walletRepository.save(any())).thenAnswer(invocation -> {
+            Wallet saved = invocation.getArgument(0);
+            saved.setVersion(saved.getVersion() + 1);
+            return saved;
+        });
+
+        cachedWalletService.getWallet(id);
+        cachedWalletService.updateBalance(new UpdateWalletDto(id, OperationType.DEPOSIT, Money.of("5")));
+        Wallet result = cachedWalletService.getWallet(id);
+
+        assertEquals(Money.of("15"), result.getBalance());
+        verify(walletRepository, times(1)).findTotalById(id);
+    }
+
+    @Test
+    void updateBalance_WhenConcurrentRequestRecordedSameKey_ThenReturnItsResponse() {
+        UUID id = UUID.randomUUID();
+        UpdateWalletDto updateWalletDto = new UpdateWalletDto(id, OperationType.DEPOSIT, Money.of("5"));
+        IdempotencyKeyRepository idempotencyKeyRepository = mock();
+        WalletService idempotentWalletService = new WalletService(
+                walletRepository,
+                new PessimisticBalanceUpdateStrategy(walletRepository, TransactionOperations.withoutTransaction(), Optional.empty()),
+                TransactionOperations.withoutTransaction(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.of(new IdempotencyService(idempotencyKeyRepository, new IdempotencyProperties(
+                        true, Duration.ofHours(1), Duration.ofMinutes(1), 4, 16, 100))),
+                Optional.empty(),
+                Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty()
+        );
+        Wallet wallet = new Wallet();
+        wallet.setId(id);
+        wallet.setBalance(Money.of("10.00"));
+        when(walletRepository.findByIdAndLock(any())).thenReturn(Optional.of(wallet));
+        when(walletRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(idempotencyKeyRepository.insertIfAbsent(any())).thenReturn(false);
+        when(idempotencyKeyRepository.find("key"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(new IdempotencyRecord(
+                        "key", id, OperationType.DEPOSIT, Money.of("5.00"), Money.of("12.00"))));
+
+        Wallet result = idempotentWalletService.updateBalance(updateWalletDto, "key");
+
+        assertEquals(Money.of("12.00"), result.getBalance());
+    }
+
+    @Test
+    void newWalletService_WhenJournalAndIdempotencyAreEnabled_ThenFailOnStartup() {
+        JournalWalletEngine journalWalletEngine = mock();
+        IdempotencyService idempotencyService = mock();
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> new WalletService(
+                walletRepository,
+                new PessimisticBalanceUpdateStrategy(walletRepository, TransactionOperations.withoutTransaction(), Optional.empty()),
+                TransactionOperations.withoutTransaction(),
+                Optional.empty(),
+                Optional.of(journalWalletEngine),
+                Optional.empty(),
+                Optional.of(idempotencyService),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty()
+        ));
+        assertEquals("wallet.idempotency.enabled cannot be combined with wallet.journal.enabled",
+                exception.getMessage());
+    }
+
+    @Test
+    void createWallet_WhenIdIsFree_ThenInsertWalletWithInitialBalance() {
+        UUID id = UUID.randomUUID();
+        when(walletRepository.insertIfAbsent(id, 1050)).thenReturn(1);
+
+        Wallet wallet = walletService.createWallet(new CreateWalletDto(id, Money.of("10.50")));
+
+        assertEquals(id, wallet.getId());
+        assertEquals(Money.of("10.50"), wallet.getBalance());
+        verify(walletRepository).insertIfAbsent(id, 1050);
+    }
+
+    @Test
+    void createWallet_WhenIdExists_ThenThrowWalletAlreadyExistsException() {
+        UUID id = UUID.randomUUID();
+        when(walletRepository.insertIfAbsent(any(), anyLong())).thenReturn(0);
+
+        WalletAlreadyExistsException exception = assertThrows(
+                WalletAlreadyExistsException.class,
+                () -> walletService.createWallet(new CreateWalletDto(id, null))
+        );
+        assertEquals("Wallet with ID " + id + " already exists", exception.getMessage());
+    }
+}
@@ -0,0 +1,34 @@
+package ani.foritk.service;
+
+import ani.foritk.config.ShardingProperties;
+import ani.foritk.repository.WalletShardRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class WalletShardFolderTest {
+
+    private final WalletShardRepository walletShardRepository = mock();
+    private final UUID kept = UUID.randomUUID();
+
+    @Test
+    void start_WhenWalletIsRemovedFromConfig_ThenFoldAllShardsButThoseOfConfiguredWallets() {
+        new WalletShardFolder(walletShardRepository, TransactionOperations.withoutTransaction(),
+                new ShardingProperties(true, 4, List.of(kept))).start();
+
+        verify(walletShardRepository).foldAllExcept(List.of(kept));
+    }
+
+    @Test
+    void start_WhenShardingIsDisabled_ThenFoldEveryShard() {
+        new WalletShardFolder(walletShardRepository, TransactionOperations.withoutTransaction(),
+                new ShardingProperties(false, 4, List.of(kept))).start();
+
+        verify(walletShardRepository).foldAllExcept(List.of());
+    }
+}
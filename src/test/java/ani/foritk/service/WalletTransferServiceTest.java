@@ -0,0 +1,152 @@
+package ani.foritk.service;
+
+import ani.foritk.config.TransferProperties;
+import ani.foritk.dto.OperationType;
+import ani.foritk.dto.TransferWalletDto;
+import ani.foritk.entity.Money;
+import ani.foritk.entity.Wallet;
+import ani.foritk.exception.ConcurrentUpdateException;
+import ani.foritk.exception.InsufficientFundsException;
+import ani.foritk.repository.WalletJdbcRepository;
+import ani.foritk.repository.WalletOperationRecord;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WalletTransferServiceTest {
+
+    private final WalletJdbcRepository walletJdbcRepository = mock();
+    private final WalletOperationLedger walletOperationLedger = mock();
+    private final WalletTransferService walletTransferService = new WalletTransferService(
+            walletJdbcRepository,
+            TransactionOperations.withoutTransaction(),
+            new TransferProperties(3, Duration.ZERO, Duration.ZERO),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.of(walletOperationLedger),
+            Optional.empty(),
+            Optional.empty()
+    );
+    private final UUID from = UUID.randomUUID();
+    private final UUID to = UUID.randomUUID();
+
+    @Test
+    void transfer_WhenFundsAreSufficient_ThenDebitAndCreditInOneWrite() {
+        when(walletJdbcRepository.lockAll(any())).thenReturn(Map.of(
+                from, wallet(from, "10.00", 1),
+                to, wallet(to, "2.00", 7)));
+
+        List<Wallet> result = walletTransferService.transfer(new TransferWalletDto(from, to, Money.of("4")));
+
+        List<Wallet> expected = List.of(wallet(from, "6.00", 2), wallet(to, "6.00", 8));
+        assertEquals(expected, result);
+        assertEquals(expected, written());
+        verify(walletOperationLedger).recordAll(List.of(
+                new WalletOperationRecord(from, OperationType.WITHDRAW, Money.of("4"), Money.of("6.00")),
+                new WalletOperationRecord(to, OperationType.DEPOSIT, Money.of("4"), Money.of("6.00"))));
+    }
+
+    @Test
+    void transfer_WhenBalanceLessThanAmount_ThenThrowInsufficientFundsException() {
+        when(walletJdbcRepository.lockAll(any())).thenReturn(Map.of(
+                from, wallet(from, "1.00", 1),
+                to, wallet(to, "2.00", 1)));
+
+        assertThrows(
+                InsufficientFundsException.class,
+                () -> walletTransferService.transfer(new TransferWalletDto(from, to, Money.of("4")))
+        );
+        verify(walletJdbcRepository, never()).updateBalances(any(), anyInt());
+    }
+
+    @Test
+    void transfer_WhenWalletIsNotFound_ThenThrowEntityNotFoundException() {
+        when(walletJdbcRepository.lockAll(any())).thenReturn(Map.of(from, wallet(from, "10.00", 1)));
+
+        assertThrows(
+                EntityNotFoundException.class,
+                () -> walletTransferService.transfer(new TransferWalletDto(from, to, Money.of("1")))
+        );
+        verify(walletJdbcRepository, never()).updateBalances(any(), anyInt());
+    }
+
+    @Test
+    void transfer_WhenDeadlockIsDetected_ThenRetry() {
+        when(walletJdbcRepository.lockAll(any()))
+                .thenThrow(new CannotAcquireLockException("deadlock detected"))
+                .thenReturn(Map.of(from, wallet(from, "10.00", 1), to, wallet(to, "0.00", 1)));
+
+        List<Wallet> result = walletTransferService.transfer(new TransferWalletDto(from, to, Money.of("1")));
+
+        assertEquals(Money.of("9.00"), result.get(0).getBalance());
+        verify(walletJdbcRepository, times(2)).lockAll(any());
+    }
+
+    @Test
+    void transfer_WhenDeadlockPersists_ThenThrowConcurrentUpdateException() {
+        when(walletJdbcRepository.lockAll(any())).thenThrow(new CannotAcquireLockException("deadlock detected"));
+
+        assertThrows(
+                ConcurrentUpdateException.class,
+                () -> walletTransferService.transfer(new TransferWalletDto(from, to, Money.of("1")))
+        );
+        verify(walletJdbcRepository, times(3)).lockAll(any());
+    }
+
+    @Test
+    void transfer_WhenSourceIsSharded_ThenWithdrawFromItsTotalAndSpreadTheRest() {
+        ShardedWalletEngine shardedWalletEngine = mock();
+        WalletTransferService service = new WalletTransferService(walletJdbcRepository,
+                TransactionOperations.withoutTransaction(), new TransferProperties(3, Duration.ZERO, Duration.ZERO),
+                Optional.empty(), Optional.empty(), Optional.of(walletOperationLedger), Optional.empty(),
+                Optional.of(shardedWalletEngine));
+        Map<UUID, Wallet> rows = Map.of(from, wallet(from, "1.00", 3), to, wallet(to, "2.00", 7));
+        when(walletJdbcRepository.lockAll(any())).thenReturn(rows);
+        when(shardedWalletEngine.lockTotals(rows)).thenReturn(Map.of(
+                from, wallet(from, "30.00", 3), to, wallet(to, "2.00", 7)));
+        when(shardedWalletEngine.isSharded(from)).thenReturn(true);
+
+        List<Wallet> result = service.transfer(new TransferWalletDto(from, to, Money.of("25")));
+
+        assertEquals(List.of(wallet(from, "5.00", 4), wallet(to, "27.00", 8)), result);
+        verify(shardedWalletEngine).setBalance(from, Money.of("5.00"));
+        assertEquals(List.of(wallet(to, "27.00", 8)), written());
+        verify(walletOperationLedger).recordAll(List.of(
+                new WalletOperationRecord(from, OperationType.WITHDRAW, Money.of("25"), null),
+                new WalletOperationRecord(to, OperationType.DEPOSIT, Money.of("25"), Money.of("27.00"))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Wallet> written() {
+        ArgumentCaptor<Collection<Wallet>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(walletJdbcRepository).updateBalances(captor.capture(), anyInt());
+        return List.copyOf(captor.getValue());
+    }
+
+    private static Wallet wallet(UUID id, String balance, long version) {
+        Wallet wallet = new Wallet();
+        wallet.setId(id);
+        wallet.setBalance(Money.of(balance));
+        wallet.setVersion(version);
+        return wallet;
+    }
+}
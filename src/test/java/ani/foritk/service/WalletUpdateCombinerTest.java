@@ -0,0 +1,132 @@
+package ani.foritk.service;
+
+import ani.foritk.config.CombiningProperties;
+import ani.foritk.dto.OperationType;
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Money;
+import ani.foritk.entity.Wallet;
+import ani.foritk.exception.InsufficientFundsException;
+import ani.foritk.repository.WalletRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WalletUpdateCombinerTest {
+
+    private final WalletRepository walletRepository = mock();
+    private final WalletUpdateCombiner walletUpdateCombiner = new WalletUpdateCombiner(
+            walletRepository,
+            TransactionOperations.withoutTransaction(),
+            new CombiningProperties(true, 64),
+            Optional.empty(),
+            Optional.empty()
+    );
+
+    @Test
+    void submit_WhenWalletIsNotFound_ThenThrowEntityNotFoundException() {
+        UUID id = UUID.randomUUID();
+        UpdateWalletDto updateWalletDto = new UpdateWalletDto(id, OperationType.DEPOSIT, Money.of("1"));
+
+        when(walletRepository.findByIdAndLock(any())).thenReturn(Optional.empty());
+        EntityNotFoundException entityNotFoundException = assertThrows(
+                EntityNotFoundException.class,
+                () -> walletUpdateCombiner.submit(updateWalletDto)
+        );
+        assertEquals("Wallet with ID " + id + " is not found", entityNotFoundException.getMessage());
+    }
+
+    @Test
+    void submit_WhenBalanceLessThanWithdrawAmount_ThenThrowInsufficientFundsAndKeepBalance() {
+        UUID id = UUID.randomUUID();
+        Wallet wallet = wallet(id, "500");
+        Money withdrawAmount = Money.of("600");
+
+        when(walletRepository.findByIdAndLock(any())).thenReturn(Optional.of(wallet));
+        InsufficientFundsException insufficientFundsException = assertThrows(
+                InsufficientFundsException.class,
+                () -> walletUpdateCombiner.submit(new UpdateWalletDto(id, OperationType.WITHDRAW, withdrawAmount))
+        );
+        assertEquals("Wallet with valletId " + id + " cannot withdraw " + withdrawAmount,
+                insufficientFundsException.getMessage());
+        assertEquals(Money.of("500"), wallet.getBalance());
+    }
+
+    @Test
+    void submit_WhenOperationsAreSequential_ThenEachCallerGetsItsOwnBalance() {
+        UUID id = UUID.randomUUID();
+        when(walletRepository.findByIdAndLock(any())).thenReturn(Optional.of(wallet(id, "50.3")));
+
+        Wallet afterDeposit = walletUpdateCombiner.submit(
+                new UpdateWalletDto(id, OperationType.DEPOSIT, Money.of("15.6")));
+        Wallet afterWithdraw = walletUpdateCombiner.submit(
+                new UpdateWalletDto(id, OperationType.WITHDRAW, Money.of("0.9")));
+
+        assertEquals(wallet(id, "65.9"), afterDeposit);
+        assertEquals(wallet(id, "65.0"), afterWithdraw);
+    }
+
+    @Test
+    void submit_WhenUpdatesAreConcurrent_ThenTheyShareLocksAndAllAreApplied() throws Exception {
+        UUID id = UUID.randomUUID();
+        Wallet wallet = wallet(id, "0");
+        when(walletRepository.findByIdAndLock(any())).thenAnswer(invocation -> {
+            Thread.sleep(5);
+            return Optional.of(wallet);
+        });
+
+        int threads = 16;
+        int updatesPerThread = 25;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < updatesPerThread; j++) {
+                    walletUpdateCombiner.submit(new UpdateWalletDto(id, OperationType.DEPOSIT, Money.of("1")));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        int total = threads * updatesPerThread;
+        assertEquals(Money.ofMinorUnits(total * 100L), wallet.getBalance());
+        int locks = mockingDetails(walletRepository).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("findByIdAndLock"))
+                .toList()
+                .size();
+        assertTrue(locks < total, "expected combined batches, but got " + locks + " locks for " + total + " updates");
+        verify(walletRepository, atMost(locks)).save(any());
+    }
+
+    private static Wallet wallet(UUID id, String balance) {
+        Wallet wallet = new Wallet();
+        wallet.setId(id);
+        wallet.setBalance(Money.of(balance));
+        return wallet;
+    }
+}
@@ -0,0 +1,71 @@
+package ani.foritk.service;
+
+import ani.foritk.dto.OperationType;
+import ani.foritk.dto.UpdateWalletDto;
+import ani.foritk.entity.Money;
+import ani.foritk.entity.Wallet;
+import ani.foritk.exception.InsufficientFundsException;
+import ani.foritk.repository.WalletRepository;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WalletUpdateMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WalletRepository walletRepository = mock();
+    private final PessimisticBalanceUpdateStrategy strategy = new PessimisticBalanceUpdateStrategy(
+            walletRepository,
+            TransactionOperations.withoutTransaction(),
+            Optional.of(new WalletUpdateMetrics(meterRegistry))
+    );
+
+    @Test
+    void updateBalance_WhenUpdateSucceeds_ThenEveryPhaseIsTimedAsOk() {
+        UUID id = UUID.randomUUID();
+        when(walletRepository.findByIdAndLock(id)).thenReturn(Optional.of(wallet(id, "10")));
+        when(walletRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        strategy.updateBalance(new UpdateWalletDto(id, OperationType.DEPOSIT, Money.of("5")));
+
+        for (String phase : new String[]{"connection", "lock", "logic", "commit"}) {
+            assertEquals(1, timer(phase, "DEPOSIT", "ok").count(), phase);
+        }
+    }
+
+    @Test
+    void updateBalance_WhenFundsAreInsufficient_ThenPhasesUpToLogicAreTimedWithOutcome() {
+        UUID id = UUID.randomUUID();
+        when(walletRepository.findByIdAndLock(id)).thenReturn(Optional.of(wallet(id, "1")));
+
+        assertThrows(InsufficientFundsException.class, () -> strategy.updateBalance(
+                new UpdateWalletDto(id, OperationType.WITHDRAW, Money.of("5"))));
+
+        assertEquals(1, timer("lock", "WITHDRAW", "insufficient_funds").count());
+        assertEquals(1, timer("logic", "WITHDRAW", "insufficient_funds").count());
+        assertEquals(0, timer("commit", "WITHDRAW", "insufficient_funds").count());
+    }
+
+    private Timer timer(String phase, String operation, String outcome) {
+        return meterRegistry.get("wallet.update.phase")
+                .tags("phase", phase, "operation", operation, "outcome", outcome)
+                .timer();
+    }
+
+    private static Wallet wallet(UUID id, String balance) {
+        Wallet wallet = new Wallet();
+        wallet.setId(id);
+        wallet.setBalance(Money.of(balance));
+        return wallet;
+    }
+}